@@ -0,0 +1,71 @@
+// Copyright 2026 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.flexiblepathfinding;
+
+import org.terasology.engine.world.block.Block;
+
+import java.util.Arrays;
+
+/**
+ * The {@link WorldSnapshot} flags of every block, indexed by block id, so that plugins test bits in a byte instead of
+ * asking the block about each of its properties.
+ * <p>
+ * Entries are filled in the first time a block is seen. Each one remembers its block, so an id that the block registry
+ * binds to a different block is refreshed on its next lookup rather than answering for the old one. The table is
+ * shared by all threads; entries are immutable, so a racing lookup sees either the old or the new entry.
+ * <p>
+ * The entries keep their blocks alive, so the table is {@link #clear cleared} whenever the block registry that they
+ * come from goes away, which {@link PathfinderSystem} does when it is initialised and shut down with the game.
+ */
+public final class BlockFlagTable {
+    private static final Entry[] entries = new Entry[1 << Short.SIZE];
+
+    private BlockFlagTable() {
+    }
+
+    /**
+     * @return the flags of the block. A missing block, e.g. in an unloaded chunk, counts as solid.
+     */
+    public static byte get(Block block) {
+        if (block == null) {
+            return WorldSnapshot.SOLID;
+        }
+
+        int id = block.getId() & 0xFFFF;
+        Entry entry = entries[id];
+        if (entry == null || entry.block != block) {
+            entry = new Entry(block, flagsOf(block));
+            entries[id] = entry;
+        }
+        return entry.flags;
+    }
+
+    /**
+     * Forgets all blocks, e.g. because the block registry is about to be replaced. Lookups during or after the call
+     * fill in their entries again.
+     */
+    public static void clear() {
+        Arrays.fill(entries, null);
+    }
+
+    private static byte flagsOf(Block block) {
+        byte result = block.isPenetrable() ? WorldSnapshot.PENETRABLE : WorldSnapshot.SOLID;
+        if (block.isLiquid()) {
+            result |= WorldSnapshot.LIQUID;
+        }
+        if (block.isWater()) {
+            result |= WorldSnapshot.WATER;
+        }
+        return result;
+    }
+
+    private static final class Entry {
+        private final Block block;
+        private final byte flags;
+
+        private Entry(Block block, byte flags) {
+            this.block = block;
+            this.flags = flags;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+// Copyright 2026 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.flexiblepathfinding;
+
+/**
+ * For every block of a {@link WorldSnapshot}, the size of the largest square footprint of blocks with a given flag that
+ * extends from it in positive x and z, `height` blocks high. A box of blocks can then be checked for the flag with a
+ * single lookup if its footprint is square, and a few if it is not, however large it is.
+ * <p>
+ * Built with the usual largest-square recurrence: a block that starts a free column of the required height gets one
+ * more than the smallest value of its neighbours in +x, +z and +xz. Values are capped at {@link #MAX_CLEARANCE}.
+ */
+public final class ClearanceMap {
+    public static final int MAX_CLEARANCE = Byte.MAX_VALUE;
+
+    private final int sizeX;
+    private final int sizeY;
+    private final int sizeZ;
+    private final int height;
+    // indexed like the flags of the snapshot
+    private final byte[] clearance;
+
+    ClearanceMap(byte[] flags, int sizeX, int sizeY, int sizeZ, byte flag, int height) {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.height = height;
+        this.clearance = new byte[flags.length];
+
+        // first the number of blocks with the flag from each block upwards, capped so that it fits a byte
+        byte[] run = new byte[flags.length];
+        int layer = sizeX * sizeZ;
+        for (int i = flags.length - 1; i >= 0; i--) {
+            if ((flags[i] & flag) != 0) {
+                int above = i + layer < flags.length ? run[i + layer] : 0;
+                run[i] = (byte) Math.min(above + 1, MAX_CLEARANCE);
+            }
+        }
+
+        for (int y = 0; y < sizeY; y++) {
+            for (int z = sizeZ - 1; z >= 0; z--) {
+                for (int x = sizeX - 1; x >= 0; x--) {
+                    int i = index(x, y, z);
+                    if (run[i] < height) {
+                        continue;
+                    }
+                    int smallest = 0;
+                    if (x + 1 < sizeX && z + 1 < sizeZ) {
+                        smallest = Math.min(clearance[i + 1], Math.min(clearance[i + sizeX], clearance[i + sizeX + 1]));
+                    }
+                    clearance[i] = (byte) Math.min(smallest + 1, MAX_CLEARANCE);
+                }
+            }
+        }
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return the clearance at the given position relative to the minimum of the snapshot
+     */
+    public int get(int x, int y, int z) {
+        return clearance[index(x, y, z)];
+    }
+
+    private int index(int x, int y, int z) {
+        return (y * sizeZ + z) * sizeX + x;
+    }
+}
@@ -13,14 +13,44 @@ import org.terasology.flexiblepathfinding.plugins.basic.WalkingPlugin;
 import java.util.concurrent.ExecutorService;
 
 public class JPSConfig {
+    // maximum number of cells a single jump may scan
     public int maxDepth = 100;
+    // maximum number of cells the whole search may scan before giving up
+    public int maxExploredNodes = 100000;
     public float maxTime = 3.0f;
+    // if positive, PathfinderSystem expands at most this many jump points at a time, and puts the search back into
+    // its queue in between, so that long searches share the workers with everything else. maxTime only counts the
+    // time actually spent searching.
+    public int expansionsPerSlice;
     public Vector3i start = new Vector3i();
     public Vector3i stop = new Vector3i();
     public EntityRef requester;
+    // PathfinderSystem refuses a request while an earlier one of the same requester is pending, unless this is set: then
+    // the earlier request is cancelled and replaced by this one
+    public boolean supersede;
+    // PathfinderSystem serves requests by urgency first, then by deadline (in seconds after the request), then by the
+    // distance of the start to the nearest player
+    public PathUrgency urgency = PathUrgency.NORMAL;
+    public float deadline = Float.POSITIVE_INFINITY;
     public JPSPlugin plugin;
+    // if set, the plugin reads blocks from this snapshot wherever it covers them, instead of from the live world
+    public WorldSnapshot snapshot;
     public double goalDistance;
     public boolean useLineOfSight;
+    // only expand the natural and forced neighbors of each jump point, rather than all 26 neighbors. This pays off in
+    // confined spaces like caves, but jumps scan until they hit an obstacle, which is expensive in wide open areas:
+    // on open ground the diagonal scans use up the whole node budget before reaching a goal 70 blocks away, so this
+    // stays off unless the caller knows the area is enclosed.
+    public boolean usePruning;
+    // weigh moves by JPSPlugin#traversalCost and return the cheapest path, rather than the shortest one found first.
+    // Jumps still cross areas of uniform cost, but stop at weighted moves, which are then expanded one by one.
+    public boolean useTraversalCosts;
+    // if the goal cannot be reached, return the path to the explored position closest to it, with PathStatus.PARTIAL
+    public boolean partialPath;
+    /**
+     * @deprecated searches run on the calling thread and enforce `maxTime` themselves, so this is ignored
+     */
+    @Deprecated
     public ExecutorService executor;
 
     public JPSConfig(Vector3ic start, Vector3ic stop) {
@@ -36,6 +66,6 @@ public class JPSConfig {
 
     @Override
     public String toString() {
-        return "start: " + start.toString() + " stop: " + stop.toString() + " " + maxDepth + " " + maxTime;
+        return "start: " + start.toString() + " stop: " + stop.toString() + " " + maxDepth + " " + maxExploredNodes + " " + maxTime;
     }
 }
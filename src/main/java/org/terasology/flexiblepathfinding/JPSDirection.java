@@ -41,19 +41,157 @@ public enum JPSDirection {
     UP,
     DOWN;
 
+    private static final JPSDirection[] DIRECTIONS = values();
     private static Vector3i[] directionVectors;
     private static Map<Vector3i, JPSDirection> vectorToDirection = Maps.newHashMap();
-    private static List<Vector3i>[] componentPermutations = new List[JPSDirection.values().length];
-    private static List<Vector3i>[] potentialForcedNeighborsCache = new List[JPSDirection.values().length];
-    private static List<Vector3i>[] keyNodesCache = new List[JPSDirection.values().length];
+    private static List<Vector3i>[] componentPermutations = new List[DIRECTIONS.length];
+    private static List<Vector3i>[] potentialForcedNeighborsCache = new List[DIRECTIONS.length];
+    private static List<Vector3i>[] keyNodesCache = new List[DIRECTIONS.length];
 
-    public static JPSDirection fromVector(Vector3i vec) {
-        if (directionVectors == null) {
-            bakeDirectionVectors();
+    // primitive copies of the data above, for the allocation free search code in JPSImpl
+    private static final JPSDirection[] deltaToDirection = new JPSDirection[27];
+    private static final JPSDirection[][] componentDirections = new JPSDirection[DIRECTIONS.length][];
+    private static final int[] componentMasks = new int[DIRECTIONS.length];
+    private static final int[] keyNodeMasks = new int[DIRECTIONS.length];
+    private static final int[] potentialForcedNeighborMasks = new int[DIRECTIONS.length];
+    private static final int[] adjacentMasks = new int[DIRECTIONS.length];
+
+    private final int x;
+    private final int y;
+    private final int z;
+
+    JPSDirection() {
+        int dx = 0;
+        int dy = 0;
+        int dz = 0;
+        for (String part : name().split("_")) {
+            switch (part) {
+                case "EAST":
+                    dx = 1;
+                    break;
+                case "WEST":
+                    dx = -1;
+                    break;
+                case "UP":
+                    dy = 1;
+                    break;
+                case "DOWN":
+                    dy = -1;
+                    break;
+                case "NORTH":
+                    dz = 1;
+                    break;
+                case "SOUTH":
+                    dz = -1;
+                    break;
+            }
+        }
+        x = dx;
+        y = dy;
+        z = dz;
+    }
+
+    static {
+        bakeDirectionVectors();
+        for (JPSDirection dir : DIRECTIONS) {
+            List<Vector3i> components = dir.getComponentPermutations();
+            componentDirections[dir.ordinal()] = new JPSDirection[components.size()];
+            for (int i = 0; i < components.size(); i++) {
+                JPSDirection component = fromVector(components.get(i));
+                componentDirections[dir.ordinal()][i] = component;
+                componentMasks[dir.ordinal()] |= component.bit();
+            }
+            keyNodeMasks[dir.ordinal()] = toMask(dir.getKeyNodes());
+            potentialForcedNeighborMasks[dir.ordinal()] = toMask(dir.getPotentialForcedNeighbors());
+            adjacentMasks[dir.ordinal()] = toMask(vectorsAdjacentTo(dir.getVector())) & ~dir.bit();
         }
+    }
+
+    public static JPSDirection fromVector(Vector3i vec) {
         return vectorToDirection.get(vec);
     }
 
+    /**
+     * @return the direction for the given delta, or null if the delta is zero or not a unit step in every axis
+     */
+    public static JPSDirection fromDelta(int dx, int dy, int dz) {
+        if (dx < -1 || dx > 1 || dy < -1 || dy > 1 || dz < -1 || dz > 1) {
+            return null;
+        }
+        return deltaToDirection[(dx + 1) * 9 + (dy + 1) * 3 + (dz + 1)];
+    }
+
+    /**
+     * Same as {@link #values()}, without copying the array. Must not be modified.
+     */
+    public static JPSDirection[] directions() {
+        return DIRECTIONS;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getZ() {
+        return z;
+    }
+
+    /**
+     * @return a bit mask containing only this direction, for use with the direction masks below
+     */
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * @return the number of {@link #getComponentPermutations() component permutations}
+     */
+    public int getComponentCount() {
+        return componentDirections[ordinal()].length;
+    }
+
+    /**
+     * @return the component permutation at the given index, in the order of {@link #getComponentPermutations()}
+     */
+    public JPSDirection getComponent(int index) {
+        return componentDirections[ordinal()][index];
+    }
+
+    public int getComponentMask() {
+        return componentMasks[ordinal()];
+    }
+
+    public int getKeyNodeMask() {
+        return keyNodeMasks[ordinal()];
+    }
+
+    public int getPotentialForcedNeighborMask() {
+        return potentialForcedNeighborMasks[ordinal()];
+    }
+
+    /**
+     * @return a mask of the directions whose vectors are at most one step (in each axis) away from this one's
+     */
+    public int getAdjacentMask() {
+        return adjacentMasks[ordinal()];
+    }
+
+    public JPSDirection getOpposite() {
+        return fromDelta(-x, -y, -z);
+    }
+
+    private static int toMask(List<Vector3i> vectors) {
+        int mask = 0;
+        for (Vector3i vec : vectors) {
+            mask |= fromVector(vec).bit();
+        }
+        return mask;
+    }
+
     public static List<Vector3i> valuesAsVectors() {
         List<Vector3i> result = Lists.newArrayList();
         for (JPSDirection dir : values()) {
@@ -63,42 +201,16 @@ public enum JPSDirection {
     }
 
     public Vector3i getVector() {
-        if (directionVectors == null) {
-            bakeDirectionVectors();
-        }
         return new Vector3i(directionVectors[this.ordinal()]);
     }
 
     private static void bakeDirectionVectors() {
-        directionVectors = new Vector3i[JPSDirection.values().length];
-        for (JPSDirection dir : JPSDirection.values()) {
-            String parts[] = dir.name().split("_");
-            Vector3i vector = new Vector3i();
-            for (String part : parts) {
-                switch (part) {
-                    case "EAST":
-                        vector.x = 1;
-                        break;
-                    case "WEST":
-                        vector.x = -1;
-                        break;
-                    case "UP":
-                        vector.y = 1;
-                        break;
-                    case "DOWN":
-                        vector.y = -1;
-                        break;
-                    case "NORTH":
-                        vector.z = 1;
-                        break;
-                    case "SOUTH":
-                        vector.z = -1;
-                        break;
-                }
-            }
-
+        directionVectors = new Vector3i[DIRECTIONS.length];
+        for (JPSDirection dir : DIRECTIONS) {
+            Vector3i vector = new Vector3i(dir.x, dir.y, dir.z);
             directionVectors[dir.ordinal()] = vector;
             vectorToDirection.put(vector, dir);
+            deltaToDirection[(dir.x + 1) * 9 + (dir.y + 1) * 3 + (dir.z + 1)] = dir;
         }
     }
 
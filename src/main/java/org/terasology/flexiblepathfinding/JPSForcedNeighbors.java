@@ -0,0 +1,124 @@
+// Copyright 2026 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.flexiblepathfinding;
+
+/**
+ * Lookup tables for the forced neighbor rules used by {@link JPSImpl}, built once when the class is loaded.
+ * <p>
+ * Whether a neighbor of the current block is forced depends on the direction of travel, on which neighbors the current
+ * block and its parent can reach, and on whether one of the key nodes offers an alternative path that is at least as
+ * good. Everything except the reachability is pure geometry, so it is computed here up front. The search then only
+ * combines these masks with the reachability masks it queries from the plugin.
+ * <p>
+ * All masks use {@link JPSDirection#bit()} and are relative to the current block, unless noted otherwise.
+ */
+public final class JPSForcedNeighbors {
+    public static final int ALL_DIRECTIONS = (1 << JPSDirection.directions().length) - 1;
+
+    private static final int COUNT = JPSDirection.directions().length;
+
+    // dir -> neighbors that may be forced (everything but the natural neighbors and the parent)
+    private static final int[] candidateMasks = new int[COUNT];
+
+    // dir, neighbor -> key nodes through which the path from the parent to the neighbor is at least as good
+    private static final int[][] dominatingKeyNodeMasks = new int[COUNT][COUNT];
+
+    // dir, direction from the parent -> the same block as a direction from the current block (0 if not adjacent)
+    private static final int[][] parentToCurrentBits = new int[COUNT][COUNT];
+
+    static {
+        for (JPSDirection dir : JPSDirection.directions()) {
+            int d = dir.ordinal();
+            candidateMasks[d] = ALL_DIRECTIONS & ~(dir.getComponentMask() | dir.getOpposite().bit());
+
+            for (JPSDirection neighbor : JPSDirection.directions()) {
+                // key nodes are adjacent to the parent, and must also be adjacent to the neighbor
+                int keyNodes = dir.getKeyNodeMask() & neighbor.getAdjacentMask();
+                for (JPSDirection keyNode : JPSDirection.directions()) {
+                    if ((keyNodes & keyNode.bit()) != 0 && !isForcedThrough(dir, keyNode, neighbor)) {
+                        dominatingKeyNodeMasks[d][neighbor.ordinal()] |= keyNode.bit();
+                    }
+                }
+
+                JPSDirection fromCurrent = JPSDirection.fromDelta(
+                    neighbor.getX() - dir.getX(), neighbor.getY() - dir.getY(), neighbor.getZ() - dir.getZ());
+                if (fromCurrent != null) {
+                    parentToCurrentBits[d][neighbor.ordinal()] = fromCurrent.bit();
+                }
+            }
+        }
+    }
+
+    private JPSForcedNeighbors() {
+    }
+
+    /**
+     * @return the neighbors that are neither natural neighbors nor the parent, and therefore may be forced
+     */
+    public static int getCandidateMask(JPSDirection dir) {
+        return candidateMasks[dir.ordinal()];
+    }
+
+    /**
+     * @param dir the direction of travel from the parent to the current block
+     * @param neighbor the ordinal of a neighbor of the current block
+     * @return the key nodes through which the parent reaches the neighbor at least as well as through the current block
+     */
+    public static int getDominatingKeyNodeMask(JPSDirection dir, int neighbor) {
+        return dominatingKeyNodeMasks[dir.ordinal()][neighbor];
+    }
+
+    /**
+     * Translates a mask relative to the parent (at current - dir) into a mask relative to the current block. Bits
+     * for blocks that are not adjacent to the current block, including the current block itself, are dropped.
+     */
+    public static int toCurrentFrame(JPSDirection dir, int parentMask) {
+        int[] bits = parentToCurrentBits[dir.ordinal()];
+        int result = 0;
+        while (parentMask != 0) {
+            result |= bits[Integer.numberOfTrailingZeros(parentMask)];
+            parentMask &= parentMask - 1;
+        }
+        return result;
+    }
+
+    /**
+     * Compares the paths P -> K -> N and P -> C -> N, where P is the parent, C the current block, K a key node and N
+     * a neighbor of the current block.
+     *
+     * @return true if the path through the current block is the optimal one
+     */
+    static boolean isForcedThrough(JPSDirection dir, JPSDirection keyNode, JPSDirection neighbor) {
+        // find the component distances of the paths P -> K -> N and P -> C -> N
+        double parentToKeyDistance = length(keyNode.getX() + dir.getX(), keyNode.getY() + dir.getY(), keyNode.getZ() + dir.getZ());
+        double keyToNeighborDistance = length(neighbor.getX() - keyNode.getX(), neighbor.getY() - keyNode.getY(), neighbor.getZ() - keyNode.getZ());
+        double parentToCurrentDistance = length(dir.getX(), dir.getY(), dir.getZ());
+        double currentToNeighborDistance = length(neighbor.getX(), neighbor.getY(), neighbor.getZ());
+
+        //  find the total distances
+        double keyDistance = parentToKeyDistance + keyToNeighborDistance;
+        double currentDistance = parentToCurrentDistance + currentToNeighborDistance;
+
+        // if the path through the current node is shorter, the neighbor is forced no matter what
+        double epsilon = 0.001;
+        boolean nearlyEqual = Math.abs(keyDistance - currentDistance) < epsilon;
+        if (currentDistance < keyDistance) {
+            return true;
+        }
+
+        // if the paths are equal in length, we compare the distance (and therefore the number of axes traveled)
+        // for each step. The first path with a higher distance step is deemed the optimal path, and if this
+        // is the current node then the neighbor is forced
+        if (nearlyEqual) {
+            if (Math.abs(parentToKeyDistance - parentToCurrentDistance) < epsilon) {
+                return keyToNeighborDistance <= currentToNeighborDistance;
+            }
+            return parentToKeyDistance <= parentToCurrentDistance;
+        }
+        return false;
+    }
+
+    private static double length(int x, int y, int z) {
+        return Math.sqrt(x * x + y * y + z * z);
+    }
+}
@@ -2,28 +2,17 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.terasology.flexiblepathfinding;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
-import com.google.common.util.concurrent.SimpleTimeLimiter;
-import com.google.common.util.concurrent.TimeLimiter;
 import org.joml.Vector3i;
-import org.joml.Vector3ic;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.flexiblepathfinding.metrics.PathMetric;
 import org.terasology.flexiblepathfinding.metrics.PathMetricsRecorder;
+import org.terasology.flexiblepathfinding.plugins.JPSPlugin;
+import org.terasology.flexiblepathfinding.plugins.StandardPlugin;
 
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
 
 /**
  * @author kaen
@@ -33,31 +22,56 @@ import java.util.concurrent.TimeUnit;
  *         The implementation is adapted to 3D but is constructed with references to the original paper.
  */
 public class JPSImpl implements JPS {
+    // number of jump steps between checks of the deadline and the interrupt flag
+    private static final int CHECK_INTERVAL = 256;
     private static boolean statsEnabled = false;
 
     private Logger logger = LoggerFactory.getLogger(JPSImpl.class);
     private JPSConfig config;
-    private Map<Vector3i, JPSJumpPoint> points = Maps.newHashMap();
     private List<Vector3i> path = Lists.newArrayList();
-    private List<JPSJumpPoint> open = Lists.newArrayList();
-    private JPSJumpPoint start;
-    private JPSJumpPoint goal;
-    private double startMillis;
+    // time spent searching so far, and the part of `config.maxTime` that is left
+    private long elapsedNanos;
+    private long remainingNanos;
+    private long queueNanos;
+    private boolean finished;
+
+    // node storage while a search is in progress, obtained from and returned to the shared pool
+    private JPSNodeArena nodes;
+    private JPSOpenList open;
+    private int start;
+    // the node at config.stop, which distances and heuristics are measured to
+    private int target;
+    // the cheapest node found so far within config.goalDistance of the target, or the target itself until then
+    private int goal;
+    // the explored node closest to the goal, for partial paths
+    private int closest;
+    private double closestDistance;
+    private PathStatus status;
+    // System.nanoTime() after which the search gives up
+    private long deadline;
+    // jump steps left until the deadline and the interrupt flag are checked again
+    private int stepsUntilCheck;
 
     // for metrics
     private double maxDepth;
     private double nodesExplored;
-
-    // some helper classes from Guava
-    private LoadingCache<VectorPair, Boolean> reachabilityCache;
-    private TimeLimiter timeLimiter;
+    private double nodesExpanded;
+    private double cost;
+    private double nodeCount;
+    private double memoryPerNode;
+    private PathMetric metric;
+
+    private JPSReachabilityCache reachabilityCache;
+    private JPSReachabilityCache sharedReachabilityCache;
+    // config.plugin, bound to the snapshot if there is one
+    private JPSPlugin plugin;
+    private WorldSnapshot snapshot;
+    // reused arguments for plugin calls
+    private final Vector3i reachableTo = new Vector3i();
+    private final Vector3i reachableFrom = new Vector3i();
 
     public JPSImpl(JPSConfig config) {
         this.config = config;
-
-        if (config.executor != null) {
-            this.timeLimiter = SimpleTimeLimiter.create(config.executor);
-        }
     }
 
     public static void setStatsEnabled(boolean statsEnabled) {
@@ -65,91 +79,232 @@ public class JPSImpl implements JPS {
     }
 
     /**
-     * Performs the search using a {@link TimeLimiter} if `config.executor` was set. In either case, blocks
-     * synchronously until the search completes or fails.
+     * Performs the search on the calling thread, blocking until it completes or fails. The search gives up with
+     * {@link PathStatus#TIMEOUT} once it has run for `config.maxTime` seconds.
      */
     public boolean run() throws InterruptedException {
-        startMillis = System.currentTimeMillis();
-
-        Callable<Boolean> callable = () -> performSearch();
-        boolean result = false;
-        if (this.timeLimiter != null) {
-            try {
-                result = timeLimiter.callWithTimeout(callable, (long) (config.maxTime * 1000.0f), TimeUnit.MILLISECONDS);
-            } catch (Exception e) {
-                logger.warn("Timeout of {} exceeded: {}", config.maxTime, e.toString());
-            }
-        } else {
-            result = performSearch();
-        }
-
-        recordMetrics();
-        return result;
+        return performSearch();
     }
 
+    /**
+     * Starts a new search, and runs it to completion.
+     */
     @Override
     public boolean performSearch() throws InterruptedException {
+        abort();
+        finished = false;
+        while (resume(Integer.MAX_VALUE) == null) {
+            // keep going
+        }
+        return status == PathStatus.FOUND;
+    }
+
+    /**
+     * Runs the search for at most `maxExpansions` expansions of the open list, starting it on the first call. In
+     * between calls the open list and nodes are kept, so a long search can be spread over several calls (and threads,
+     * as long as the calls do not overlap) without holding up a thread the whole time.
+     * <p>
+     * `config.maxTime` limits the time spent inside this method, summed over all calls.
+     *
+     * @return the outcome once the search is finished, or null if it should be resumed later
+     */
+    public PathStatus resume(int maxExpansions) throws InterruptedException {
+        if (finished) {
+            return status;
+        }
+
         Thread.currentThread().setPriority(Thread.MIN_PRIORITY);
-        reachabilityCache = CacheBuilder.newBuilder()
-                .maximumSize(100000)
-                .build(new CacheLoader<VectorPair, Boolean>() {
-                    public Boolean load(VectorPair key) {
-                        return config.plugin.isReachable(key.a, key.b);
-                    }
-                });
-
-        points.clear();
-        start = getJumpPoint(config.start);
-        goal = getJumpPoint(config.stop);
-        logger.debug("Starting JPS search: {} -> {}", start.getPosition(), goal.getPosition());
-
-        if (start == goal || (config.useLineOfSight && config.plugin.inSight(start.getPosition(), goal.getPosition()))) {
-            path.clear();
-            path.add(new Vector3i(start.getPosition()));
-            path.add(new Vector3i(goal.getPosition()));
+        long sliceStart = System.nanoTime();
+        boolean done = true;
+        try {
+            if (nodes == null) {
+                begin();
+            }
+            deadline = sliceStart + remainingNanos;
+            stepsUntilCheck = 0;
+
+            done = status != null || expand(maxExpansions);
+            if (done) {
+                complete();
+            }
+            return done ? status : null;
+        } finally {
+            long sliceNanos = System.nanoTime() - sliceStart;
+            elapsedNanos += sliceNanos;
+            remainingNanos -= sliceNanos;
+            // the next slice may run on another thread, so this one should not keep the plugins of the search alive
+            StandardPlugin.release();
+            if (done) {
+                finish();
+            }
+        }
+    }
+
+    /**
+     * Makes the search use the given cache rather than a fresh one, so that it can reuse the answers of earlier
+     * searches with the same plugin. The cache must not be used by another search at the same time.
+     */
+    public void setReachabilityCache(JPSReachabilityCache reachabilityCache) {
+        sharedReachabilityCache = reachabilityCache;
+    }
+
+    /**
+     * Makes the search read blocks from the snapshot rather than the one in the config.
+     */
+    public void setSnapshot(WorldSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Sets the time the request has spent waiting in a queue so far, to be included in the metrics.
+     */
+    public void setQueueTime(long nanos) {
+        queueNanos = nanos;
+    }
+
+    /**
+     * @return true once the search has completed, failed or been aborted
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Gives up on a search that has not finished yet, releasing its nodes. Does nothing otherwise.
+     */
+    public void abort() {
+        if (nodes != null) {
+            if (status == null) {
+                status = PathStatus.CANCELLED;
+            }
+            finish();
+        }
+    }
+
+    private void begin() {
+        if (!JPSNodeTable.inRange(config.start) || !JPSNodeTable.inRange(config.stop)) {
+            throw new IllegalArgumentException("Cannot search from " + config.start + " to " + config.stop
+                    + ", coordinates are limited to [" + JPSNodeTable.MIN_COORDINATE + ", "
+                    + JPSNodeTable.MAX_COORDINATE + "]");
+        }
+        path.clear();
+        status = null;
+        maxDepth = 0;
+        nodesExplored = 0;
+        nodesExpanded = 0;
+        elapsedNanos = 0;
+        remainingNanos = (long) (config.maxTime * 1e9);
+
+        WorldSnapshot effectiveSnapshot = snapshot != null ? snapshot : config.snapshot;
+        plugin = effectiveSnapshot != null ? config.plugin.withSnapshot(effectiveSnapshot) : config.plugin;
+        nodes = JPSNodeArena.obtain();
+        open = nodes.getOpenList();
+        reachabilityCache = sharedReachabilityCache != null ? sharedReachabilityCache : nodes.getReachabilityCache();
+        start = nodes.getOrCreate(config.start.x, config.start.y, config.start.z);
+        target = nodes.getOrCreate(config.stop.x, config.stop.y, config.stop.z);
+        goal = target;
+        logger.debug("Starting JPS search: {} -> {}", config.start, config.stop);
+
+        if (start == goal || (config.useLineOfSight && plugin.inSight(config.start, config.stop))) {
+            path.add(getPosition(start));
+            path.add(getPosition(goal));
             logger.debug("Start and goal are within line of sight");
-            return true;
+            status = PathStatus.FOUND;
+            return;
         }
+        open.push(start, nodes.getHeuristic(start));
+        closest = start;
+        closestDistance = nodes.distance(start, target);
+    }
+
+    /**
+     * @return true if the search is done, false if it ran out of expansions first
+     */
+    private boolean expand(int maxExpansions) throws InterruptedException {
+        for (int i = 0; i < maxExpansions; i++) {
+            if (open.isEmpty() || status != null) {
+                return true;
+            }
 
-        open.add(start);
-        while (open.size() > 0) {
-            JPSJumpPoint point = open.remove(open.size() - 1);
-            open.addAll(identifySuccessors(point));
+            int current = open.poll();
+            // with costs, the goal is only reached optimally once it is the cheapest node left
+            if (config.useTraversalCosts && current == goal) {
+                return true;
+            }
+            identifySuccessors(current);
+            nodesExpanded += 1;
 
-            if (goal.getParent() != null) {
+            if (!config.useTraversalCosts && nodes.hasParent(goal)) {
                 logger.debug("Goal position has a parent, breaking open loop");
-                break;
+                return true;
             }
+        }
+        return open.isEmpty() || status != null;
+    }
 
-            open.sort(new Comparator<JPSJumpPoint>() {
-                @Override
-                public int compare(JPSJumpPoint o1, JPSJumpPoint o2) {
-                    if (o1.getHeurisitic() > o2.getHeurisitic()) {
-                        return -1;
-                    }
-
-                    if (o1.getHeurisitic() == o2.getHeurisitic()) {
-                        return 0;
-                    }
-                    return 1;
-                }
-            });
+    private void complete() {
+        if (status == PathStatus.FOUND) {
+            return;
         }
 
-        if (goal.getParent() == null) {
-            logger.debug("Goal position has no parent after open list loop. Failure.");
-            return false;
+        if (!nodes.hasParent(goal)) {
+            if (status == null) {
+                status = PathStatus.UNREACHABLE;
+            }
+            logger.debug("Goal position has no parent after open list loop. Failure: {}", status);
+            if (config.partialPath && closest != start) {
+                reconstructPath(closest);
+                status = PathStatus.PARTIAL;
+            }
+            return;
         }
 
-        path.clear();
-        path.add(new Vector3i(goal.getPosition()));
-        JPSJumpPoint parent = goal.getParent();
-        while (parent != null) {
-            path.add(0, new Vector3i(parent.getPosition()));
-            parent = parent.getParent();
+        reconstructPath(goal);
+        status = PathStatus.FOUND;
+    }
+
+    /**
+     * Fills {@link #path} with the positions from the start to `end`.
+     */
+    private void reconstructPath(int end) {
+        // jump points are connected by straight (or diagonal) runs in their parent direction; fill those in so that
+        // consecutive path entries are always adjacent
+        int node = end;
+        int parent = nodes.getParent(node);
+        while (parent != JPSNodeArena.NONE) {
+            JPSDirection dir = nodes.getParentDirection(node);
+            int x = nodes.getX(node);
+            int y = nodes.getY(node);
+            int z = nodes.getZ(node);
+            while (x != nodes.getX(parent) || y != nodes.getY(parent) || z != nodes.getZ(parent)) {
+                path.add(new Vector3i(x, y, z));
+                x -= dir.getX();
+                y -= dir.getY();
+                z -= dir.getZ();
+            }
+            node = parent;
+            parent = nodes.getParent(node);
         }
+        path.add(getPosition(start));
+        Collections.reverse(path);
         logger.debug("Found path: {}", path);
-        return true;
+    }
+
+    /**
+     * Returns the nodes to the pool and records the metrics of the search, however it ended.
+     */
+    private void finish() {
+        finished = true;
+        if (nodes != null) {
+            cost = nodes.getCost(goal);
+            nodeCount = nodes.size();
+            memoryPerNode = nodes.getAllocatedBytes() / Math.max(nodeCount, 1);
+            JPSNodeArena.free(nodes);
+            nodes = null;
+            open = null;
+            reachabilityCache = null;
+        }
+        recordMetrics();
     }
 
     //  Algorithm 1 Identify Successors
@@ -160,61 +315,202 @@ public class JPSImpl implements JPS {
     // 4:     n ← jump(x, direction(x, n), s, g)
     // 5:     add n to successors(x)
     // 6: return successors(x)
-    private List<JPSJumpPoint> identifySuccessors(JPSJumpPoint current) throws InterruptedException {
-        List<JPSJumpPoint> result = Lists.newArrayList();
-        Map<JPSDirection, JPSJumpPoint> prunedNeighbors = prune(current.getParentDirection(), current);
-
-        for (Map.Entry<JPSDirection, JPSJumpPoint> neighbor : prunedNeighbors.entrySet()) {
-            double dist = current.getPosition().distance(neighbor.getValue().getPosition());
+    //
+    // Successors are pushed straight onto the open list rather than collected first.
+    private void identifySuccessors(int current) throws InterruptedException {
+        int x = nodes.getX(current);
+        int y = nodes.getY(current);
+        int z = nodes.getZ(current);
+        int reachable = getNeighbors(x, y, z);
+        // the pruning rules assume uniform costs: that no neighbor is reached more cheaply through this position than
+        // from the parent directly, and that the positions a jump passes are no shortcut. So positions next to
+        // weighted moves take single steps to all their neighbors, which in turn expand all of theirs.
+        boolean weighted = config.useTraversalCosts && getWeightedNeighbors(x, y, z, reachable) != 0;
+        int prunedNeighbors = weighted || hasWeightedParent(current)
+                ? reachable
+                : prune(nodes.getParentDirection(current), x, y, z, reachable);
+
+        for (JPSDirection dir : JPSDirection.directions()) {
+            if ((prunedNeighbors & dir.bit()) == 0) {
+                continue;
+            }
 
             // don't explore a neighbor that has been more optimally explored
-            if (neighbor.getValue() == start || (neighbor.getValue().getParent() != null && neighbor.getValue().getCost() < current.getCost() + dist)) {
-                continue;
+            int neighbor = nodes.find(x + dir.getX(), y + dir.getY(), z + dir.getZ());
+            if (neighbor != JPSNodeArena.NONE) {
+                double dist = nodes.distance(current, neighbor);
+                if (neighbor == start || (nodes.hasParent(neighbor) && nodes.getCost(neighbor) < nodes.getCost(current) + dist)) {
+                    continue;
+                }
+            }
+            int jumpedNeighbor = weighted ? step(x, y, z, dir) : jump(x, y, z, dir, reachable);
+            if (status != null) {
+                return;
             }
-            JPSJumpPoint jumpedNeighbor = jump(new Vector3i(current.getPosition()), neighbor.getKey(), start, goal);
 
             // updates parent if this is optimal path so far
-            current.setSuccessor(neighbor.getKey(), jumpedNeighbor);
-
-            if(null != jumpedNeighbor &&
-                    jumpedNeighbor.getPosition().distanceSquared(goal.getPosition()) <= config.goalDistance * config.goalDistance
-                    ) {
-                goal = jumpedNeighbor;
-                return Lists.newArrayList(jumpedNeighbor);
+            boolean improved = setSuccessor(current, dir, jumpedNeighbor);
+
+            if (jumpedNeighbor != JPSNodeArena.NONE
+                    && nodes.distanceSquared(jumpedNeighbor, target) <= config.goalDistance * config.goalDistance) {
+                if (!config.useTraversalCosts) {
+                    goal = jumpedNeighbor;
+                    open.push(jumpedNeighbor, getKey(jumpedNeighbor));
+                    return;
+                }
+                // a later successor may still lead into the goal more cheaply, and the goal is only done once it is
+                // the cheapest node left, so it is queued like any other successor
+                if (improved && (!nodes.hasParent(goal) || nodes.getCost(jumpedNeighbor) <= nodes.getCost(goal))) {
+                    goal = jumpedNeighbor;
+                }
             }
 
             // not parent means not optimal path, and we don't have to explore
-            if (jumpedNeighbor != null) { // && jumpedNeighbor.getParent() == current) {
-                jumpedNeighbor.setHeurisitic(goal.getPosition().distance(jumpedNeighbor.getPosition()));
-                result.add(jumpedNeighbor);
+            if (jumpedNeighbor != JPSNodeArena.NONE && (improved || !config.useTraversalCosts)) {
+                nodes.setHeuristic(jumpedNeighbor, nodes.distance(target, jumpedNeighbor));
+                if (nodes.getHeuristic(jumpedNeighbor) < closestDistance) {
+                    closest = jumpedNeighbor;
+                    closestDistance = nodes.getHeuristic(jumpedNeighbor);
+                }
+                // re-keys the successor in place if it is already queued
+                open.push(jumpedNeighbor, getKey(jumpedNeighbor));
             }
         }
-        return result;
     }
 
-    private Map<JPSDirection, JPSJumpPoint> getNeighbors(JPSJumpPoint point) {
-        Map<JPSDirection, JPSJumpPoint> result = Maps.newHashMap();
-        // TODO we don't even need a jump point here
-        for (JPSDirection dir : JPSDirection.values()) {
-            Vector3i neighborPos = new Vector3i(point.getPosition()).add(dir.getVector());
+    /**
+     * @return true if the node was reached from a position next to weighted moves
+     */
+    private boolean hasWeightedParent(int node) {
+        if (!config.useTraversalCosts || !nodes.hasParent(node)) {
+            return false;
+        }
+        int parent = nodes.getParent(node);
+        int x = nodes.getX(parent);
+        int y = nodes.getY(parent);
+        int z = nodes.getZ(parent);
+        return getWeightedNeighbors(x, y, z, getNeighbors(x, y, z)) != 0;
+    }
 
-            if (isReachable(neighborPos, point.getPosition())) {
-                result.put(dir, getJumpPoint(neighborPos));
+    /**
+     * @return the neighbor of (x, y, z) in dir, which must be reachable, as a jump point of its own
+     */
+    private int step(int x, int y, int z, JPSDirection dir) throws InterruptedException {
+        nodesExplored += 1;
+        if (--stepsUntilCheck <= 0 && !checkLimits()) {
+            return JPSNodeArena.NONE;
+        }
+        return nodes.getOrCreate(x + dir.getX(), y + dir.getY(), z + dir.getZ());
+    }
+
+    /**
+     * Makes `current` the parent of `successor` if that is the cheapest way to reach it found so far.
+     *
+     * @return true if it did
+     */
+    private boolean setSuccessor(int current, JPSDirection dir, int successor) {
+        if (successor == JPSNodeArena.NONE) {
+            return false;
+        }
+        double step = nodes.distance(successor, current);
+        // jumps stop before weighted moves, so only a jump of a single step can include one
+        int dx = nodes.getX(successor) - nodes.getX(current);
+        int dy = nodes.getY(successor) - nodes.getY(current);
+        int dz = nodes.getZ(successor) - nodes.getZ(current);
+        if (config.useTraversalCosts && JPSDirection.fromDelta(dx, dy, dz) != null) {
+            step *= getTraversalCost(nodes.getX(successor), nodes.getY(successor), nodes.getZ(successor),
+                    nodes.getX(current), nodes.getY(current), nodes.getZ(current));
+        }
+        double successorCost = nodes.getCost(current) + step;
+        if (!nodes.hasParent(successor) || nodes.getCost(successor) > successorCost) {
+            nodes.setCost(successor, successorCost);
+            nodes.setParent(successor, current, dir);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the key of the node in the open list: the estimated distance to the goal, plus the cost so far if the
+     * search is cost aware
+     */
+    private double getKey(int node) {
+        if (config.useTraversalCosts) {
+            return nodes.getCost(node) + nodes.getHeuristic(node);
+        }
+        return nodes.getHeuristic(node);
+    }
+
+    /**
+     * @return the cost factor of the move, at least 1
+     */
+    private float getTraversalCost(int toX, int toY, int toZ, int fromX, int fromY, int fromZ) {
+        float cost = plugin.traversalCost(reachableTo.set(toX, toY, toZ), reachableFrom.set(fromX, fromY, fromZ));
+        return Math.max(1, cost);
+    }
+
+    /**
+     * @return the mask of the reachable directions from (x, y, z) whose moves cost more than their length. Asks the
+     * plugin once per position, since jumps ask for every position they pass.
+     */
+    private int getWeightedNeighbors(int x, int y, int z, int reachable) {
+        int result = reachabilityCache.getWeightedMask(x, y, z);
+        if (result != JPSReachabilityCache.UNKNOWN) {
+            return result;
+        }
+
+        result = 0;
+        for (JPSDirection dir : JPSDirection.directions()) {
+            if ((reachable & dir.bit()) != 0
+                    && getTraversalCost(x + dir.getX(), y + dir.getY(), z + dir.getZ(), x, y, z) > 1) {
+                result |= dir.bit();
+            }
+        }
+        reachabilityCache.putWeightedMask(x, y, z, result);
+        return result;
+    }
+
+    /**
+     * @return a mask of the directions in which a neighbor of the point is reachable
+     */
+    private int getNeighbors(int x, int y, int z) {
+        int result = queryNeighbors(x, y, z);
+        // positions beyond the range of the node table cannot be told apart, so they count as blocked
+        if (!JPSNodeTable.inRange(x - 1, y - 1, z - 1) || !JPSNodeTable.inRange(x + 1, y + 1, z + 1)) {
+            for (JPSDirection dir : JPSDirection.directions()) {
+                if (!JPSNodeTable.inRange(x + dir.getX(), y + dir.getY(), z + dir.getZ())) {
+                    result &= ~dir.bit();
+                }
             }
         }
         return result;
     }
 
-    private JPSJumpPoint getJumpPoint(Vector3i pos) {
-        JPSJumpPoint result = points.get(pos);
-        if (result == null) {
-            result = new JPSJumpPoint(pos);
-            points.put(pos, result);
+    private int queryNeighbors(int x, int y, int z) {
+        int result = reachabilityCache.getReachableMask(x, y, z);
+        if (result != JPSReachabilityCache.UNKNOWN) {
+            return result;
+        }
 
+        result = plugin.reachableMask(reachableFrom.set(x, y, z));
+        if (result != JPSPlugin.NO_MASK) {
+            reachabilityCache.putMask(x, y, z, result);
+            return result;
+        }
+
+        result = 0;
+        for (JPSDirection dir : JPSDirection.directions()) {
+            if (isReachable(x + dir.getX(), y + dir.getY(), z + dir.getZ(), x, y, z)) {
+                result |= dir.bit();
+            }
         }
         return result;
     }
 
+    private Vector3i getPosition(int node) {
+        return new Vector3i(nodes.getX(node), nodes.getY(node), nodes.getZ(node));
+    }
+
     /**
      * Find forced neighbors as described in the paper. Here we essentially implement an exhaustive search of the 3x3x3
      * adjacency cube. We retreive some basic statically computable information (the "potential forced neighbors" and
@@ -245,98 +541,59 @@ public class JPSImpl implements JPS {
      * extend this into 3D, a path is strictly dominant if its cost is less than or equal to another's, and the
      * manhatten distance of each delta vector in the first path is greater than or equal to the corresponding delta
      * vector in the other path.
+     * <p>
+     * Unlike on a uniform grid, our plugins can forbid a move between two adjacent blocks (e.g. a walking agent
+     * cannot step up). So a neighbor next to the parent is only assumed to be covered by the parent if the parent can
+     * reach it directly, and is otherwise checked against the key nodes like any other candidate.
+     * <p>
+     * Neighbors are represented as masks of {@link JPSDirection#bit()} relative to the current position. The
+     * geometric part (which neighbors are candidates, and which key nodes dominate them) is looked up from
+     * {@link JPSForcedNeighbors}, so only the moves from a key node to a neighbor still need to be asked of the plugin.
      *
-     *
-     * @param parent
-     * @param current
-     * @see JPSDirection
-     * @return
+     * @param dir the direction of travel from the parent (at current - dir) to current
+     * @param reachable the neighbors reachable from the current position
+     * @param parentReachable the neighbors reachable from the parent, relative to the parent
+     * @see JPSForcedNeighbors
+     * @return a mask of forced neighbor directions
      */
-    private List<Vector3i> findForcedNeighbors(Vector3ic parent, Vector3ic current) {
-        // reusable vectors
-        Vector3i keyPos = new Vector3i();
-        Vector3i neighborPos = new Vector3i();
-
-        // constant throughout the loops below
-        Vector3i parentDelta = new Vector3i(parent).sub(current);
-        JPSDirection dir = JPSDirection.fromVector(new Vector3i(current).sub(parent));
-
-        List<Vector3i> potentialForcedNeighbors = dir.getPotentialForcedNeighbors();
-        List<Vector3i> keyNodes = dir.getKeyNodes();
-
-        // we immediately prune any potential forced neighbors that are not reachable from the current block
-        Set<Vector3i> prunedNeighbors = Sets.newHashSet();
-        for (Vector3i potentialForcedNeighbor : potentialForcedNeighbors) {
-            neighborPos.set(current).add(potentialForcedNeighbor);
-            if (!isReachable(neighborPos, current)) {
-                prunedNeighbors.add(potentialForcedNeighbor);
+    private int findForcedNeighbors(int x, int y, int z, JPSDirection dir, int reachable, int parentReachable) {
+        // neighbors that are reachable from the parent, relative to the current block
+        int reachedByParent = JPSForcedNeighbors.toCurrentFrame(dir, parentReachable);
+
+        // we immediately prune any neighbors that are not reachable from the current block
+        int candidates = JPSForcedNeighbors.getCandidateMask(dir) & reachable;
+
+        // neighbors next to the parent are strictly closer to it than through the current block, but only if
+        // the parent can actually move there directly
+        candidates &= ~(dir.getKeyNodeMask() & reachedByParent);
+
+        int forcedNeighbors = 0;
+        while (candidates != 0) {
+            int neighbor = Integer.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1;
+
+            // not reachable from the parent means not optimal
+            int keyNodes = JPSForcedNeighbors.getDominatingKeyNodeMask(dir, neighbor) & reachedByParent;
+            if (!isReachableThroughAny(x, y, z, keyNodes, JPSDirection.directions()[neighbor])) {
+                forcedNeighbors |= 1 << neighbor;
             }
         }
+        return forcedNeighbors;
+    }
 
-        for (Vector3i keyNode : keyNodes) {
-            keyPos.set(current).add(keyNode);
-
-            // not reachable means not optimal
-            boolean parentToKey = isReachable(keyPos, parent);
-            if (!parentToKey) {
-                continue;
-            }
-
-            for (Vector3i potentialForcedNeighbor : potentialForcedNeighbors) {
-                // rather than actually pruning the neighbors each iteration, we skip over them
-                if (prunedNeighbors.contains(potentialForcedNeighbor)) {
-                    continue;
-                }
-
-                neighborPos.set(current).add(potentialForcedNeighbor);
-
-                boolean keyToNeighbor = isReachable(neighborPos, keyPos);
-
-                // again unreachable means not optimal
-                if (keyToNeighbor) {
-
-                    // find the component distances of the paths P -> K -> N and P -> C -> N
-                    double parentToKeyDistance = parentDelta.distance(keyNode);
-                    double keyToNeighborDistance = keyNode.distance(potentialForcedNeighbor);
-                    double parentToCurrentDistance = parentDelta.length();
-                    double currentToNeighborDistance = potentialForcedNeighbor.length();
-
-                    //  find the total distances
-                    double keyDistance = parentToKeyDistance + keyToNeighborDistance;
-                    double currentDistance = parentToCurrentDistance + currentToNeighborDistance;
-
-                    // if the path through the current node is shorter, the neighbor is forced no matter what
-                    double epsilon = 0.001;
-                    boolean nearlyEqual = Math.abs(keyDistance - currentDistance) < epsilon;
-                    if (currentDistance < keyDistance) {
-                        continue;
-                    }
-
-                    // if the paths are equal in length, we compare the distance (and therefore the number of axes traveled)
-                    // for each step. The first path with a higher distance step is deemed the optimal path, and if this
-                    // is the current node then the neighbor is forced
-                    if (nearlyEqual) {
-                        if (Math.abs(parentToKeyDistance - parentToCurrentDistance) < epsilon) {
-                            if (keyToNeighborDistance <= currentToNeighborDistance) {
-                                continue;
-                            }
-                        } else if (parentToKeyDistance <= parentToCurrentDistance) {
-                            continue;
-                        }
-                    }
-
-                    // if we get here, the neighbor is not forced and we can prune it
-                    prunedNeighbors.add(potentialForcedNeighbor);
-                }
+    /**
+     * @return true if the neighbor of (x, y, z) is reachable from any of the key nodes in the mask
+     */
+    private boolean isReachableThroughAny(int x, int y, int z, int keyNodes, JPSDirection neighbor) {
+        while (keyNodes != 0) {
+            JPSDirection keyNode = JPSDirection.directions()[Integer.numberOfTrailingZeros(keyNodes)];
+            keyNodes &= keyNodes - 1;
+            if (isReachable(x + neighbor.getX(), y + neighbor.getY(), z + neighbor.getZ(),
+                    x + keyNode.getX(), y + keyNode.getY(), z + keyNode.getZ())) {
+                return true;
             }
         }
-//        potentialForcedNeighbors.removeAll(prunedNeighbors);
-        return potentialForcedNeighbors;
-    }
-
-    // proof is left as an excercise to the reader :)
-    private List<Vector3i> findNaturalNeighbors(Vector3i parent, Vector3ic current) {
-        return Lists.newArrayList(JPSDirection.fromVector(new Vector3i(current).sub(parent)).getComponentPermutations());
+        return false;
     }
 
     /*
@@ -344,28 +601,18 @@ public class JPSImpl implements JPS {
 
      This implements a 3D version of the pruning rules mentioned in the paper.
 
+     @return a mask of the neighbor directions to explore
      */
-    private Map<JPSDirection, JPSJumpPoint> prune(JPSDirection dir, JPSJumpPoint current) {
-        Map<JPSDirection, JPSJumpPoint> result = Maps.newHashMap();
-        // TODO: why does this work?
-        if (true || dir == null) {
-            return getNeighbors(current);
-        }
-
-        Vector3i parentPos = new Vector3i(current.getPosition()).sub(dir.getVector());
-        Vector3ic currentPos = current.getPosition();
-        Vector3i pos = new Vector3i();
-        for (Vector3i vec : findNaturalNeighbors(parentPos, current.getPosition())) {
-            pos.set(vec).add(currentPos);
-            result.put(JPSDirection.fromVector(vec), getJumpPoint(pos));
+    private int prune(JPSDirection dir, int x, int y, int z, int reachable) {
+        if (dir == null || !config.usePruning) {
+            return reachable;
         }
 
-        for (Vector3i vec : findForcedNeighbors(parentPos, current.getPosition())) {
-            pos.set(vec).add(currentPos);
-            result.put(JPSDirection.fromVector(vec), getJumpPoint(pos));
-        }
-
-        return result;
+        // the natural neighbors are the component permutations of the direction of travel
+        // proof is left as an excercise to the reader :)
+        int naturalNeighbors = dir.getComponentMask();
+        int parentReachable = getNeighbors(x - dir.getX(), y - dir.getY(), z - dir.getZ());
+        return naturalNeighbors | findForcedNeighbors(x, y, z, dir, reachable, parentReachable);
     }
 
     /*
@@ -392,109 +639,175 @@ public class JPSImpl implements JPS {
     12:        else
     13:            return n
     14: return null
+
+    The final component is always d itself, so the tail call in line 11 is turned into a loop that scans along d. Only
+    the jumps along the lower dimensional components recurse, so the recursion depth is at most 3 no matter how far a
+    jump travels. The scan still stops after `config.maxDepth` steps, and the whole search after
+    `config.maxExploredNodes` steps.
      */
-    private JPSJumpPoint jump(Vector3i current, JPSDirection dir, JPSJumpPoint start, JPSJumpPoint goal) throws InterruptedException {
-        return jump(current, dir, start, goal, 0);
+    private int jump(int x, int y, int z, JPSDirection dir, int reachable) throws InterruptedException {
+        return jump(x, y, z, dir, reachable, 0);
     }
 
-    private JPSJumpPoint jump(Vector3i current, JPSDirection dir, JPSJumpPoint start, JPSJumpPoint goal, int level) throws InterruptedException {
-        maxDepth = Math.max(maxDepth, level);
-        nodesExplored += 1;
+    /**
+     * @param reachable the mask of neighbors reachable from (x, y, z). Each step queries the mask of the block it
+     * moves to once, which then serves both its own forced neighbor check and the parent side of the next one.
+     */
+    private int jump(int x, int y, int z, JPSDirection dir, int reachable, int level) throws InterruptedException {
+        while (true) {
+            maxDepth = Math.max(maxDepth, level);
+            nodesExplored += 1;
 
-        if (level >= config.maxDepth) {
-            return null;
-        }
+            if (level >= config.maxDepth) {
+                return JPSNodeArena.NONE;
+            }
 
-        if (Thread.interrupted()) {
-            throw new InterruptedException();
-        }
+            if (nodesExplored > config.maxExploredNodes) {
+                status = PathStatus.BUDGET_EXHAUSTED;
+                return JPSNodeArena.NONE;
+            }
 
-        Vector3i neighbor = dir.getVector().add(current);
+            if (--stepsUntilCheck <= 0 && !checkLimits()) {
+                return JPSNodeArena.NONE;
+            }
 
-        // this is the goal (or close enough to it)
-        if (neighbor.distanceSquared(goal.getPosition()) <= config.goalDistance * config.goalDistance) {
-            goal = getJumpPoint(neighbor);
-            return goal;
-        }
+            int neighborX = x + dir.getX();
+            int neighborY = y + dir.getY();
+            int neighborZ = z + dir.getZ();
 
-        if (!isReachable(neighbor, current)) {
-            return null;
-        }
+            if ((reachable & dir.bit()) == 0) {
+                return JPSNodeArena.NONE;
+            }
 
-        List<Vector3i> forcedNeighbors = findForcedNeighbors(current, neighbor);
-        if (forcedNeighbors.size() > 0) {
-            return getJumpPoint(neighbor);
-        }
+            // this is the goal (or close enough to it)
+            long dx = neighborX - nodes.getX(target);
+            long dy = neighborY - nodes.getY(target);
+            long dz = neighborZ - nodes.getZ(target);
+            if (dx * dx + dy * dy + dz * dz <= config.goalDistance * config.goalDistance) {
+                return nodes.getOrCreate(neighborX, neighborY, neighborZ);
+            }
+
+            // without pruning every reachable neighbor is expanded anyway, so every cell is a jump point
+            if (!config.usePruning) {
+                return nodes.getOrCreate(neighborX, neighborY, neighborZ);
+            }
+
+            if (config.useTraversalCosts && (getWeightedNeighbors(x, y, z, reachable) & dir.bit()) != 0) {
+                // a weighted move is taken on its own. Deeper in a jump, stop in front of it, which is a jump point
+                // of the uniform cost part (or makes the jump of the level above end in one).
+                return level == 0 ? nodes.getOrCreate(neighborX, neighborY, neighborZ) : nodes.getOrCreate(x, y, z);
+            }
+
+            int neighborReachable = getNeighbors(neighborX, neighborY, neighborZ);
+            if (findForcedNeighbors(neighborX, neighborY, neighborZ, dir, neighborReachable, reachable) != 0) {
+                return nodes.getOrCreate(neighborX, neighborY, neighborZ);
+            }
 
-        // this method provides the components sorted by manhatten length
-        for (Vector3i vec : dir.getComponentPermutations()) {
-            JPSJumpPoint result = jump(neighbor, JPSDirection.fromVector(vec), start, goal, level + 1);
-            if (result != null) {
-                if (vec.distanceSquared(dir.getVector()) == 0) {
-                    return result;
-                } else {
-                    return getJumpPoint(neighbor);
+            // positions next to weighted moves are expanded one by one
+            if (config.useTraversalCosts
+                    && getWeightedNeighbors(neighborX, neighborY, neighborZ, neighborReachable) != 0) {
+                return nodes.getOrCreate(neighborX, neighborY, neighborZ);
+            }
+
+            // the components are sorted by manhatten length, so all but the last one are lower dimensional
+            int components = dir.getComponentCount();
+            for (int i = 0; i < components - 1; i++) {
+                int result = jump(neighborX, neighborY, neighborZ, dir.getComponent(i), neighborReachable, level + 1);
+                if (status != null) {
+                    return JPSNodeArena.NONE;
+                }
+                if (result != JPSNodeArena.NONE) {
+                    return nodes.getOrCreate(neighborX, neighborY, neighborZ);
                 }
             }
+
+            // continue scanning along dir
+            x = neighborX;
+            y = neighborY;
+            z = neighborZ;
+            reachable = neighborReachable;
+            level++;
         }
+    }
 
-        return null;
+    /**
+     * Checks the interrupt flag and the deadline. Both are too expensive to check on every step of a jump, but a few
+     * hundred steps take well under a millisecond.
+     *
+     * @return false if the search ran out of time
+     */
+    private boolean checkLimits() throws InterruptedException {
+        stepsUntilCheck = CHECK_INTERVAL;
+        if (Thread.interrupted()) {
+            status = PathStatus.CANCELLED;
+            throw new InterruptedException();
+        }
+        if (System.nanoTime() - deadline > 0) {
+            status = PathStatus.TIMEOUT;
+            return false;
+        }
+        return true;
     }
 
     public List<Vector3i> getPath() {
         return path;
     }
 
-    private boolean isReachable(Vector3ic a, Vector3ic b) {
-        try {
-            return reachabilityCache.get(new VectorPair(a, b));
-        } catch (ExecutionException e) {
-            logger.warn(e.toString());
-        }
-        return false;
+    /**
+     * @return the outcome of the last search, or null if it has not finished yet
+     */
+    public PathStatus getStatus() {
+        return status;
     }
 
-    private void recordMetrics() {
-        if (!statsEnabled) {
-            return;
+    private boolean isReachable(int toX, int toY, int toZ, int fromX, int fromY, int fromZ) {
+        if (!JPSNodeTable.inRange(toX, toY, toZ) || !JPSNodeTable.inRange(fromX, fromY, fromZ)) {
+            return false;
+        }
+        JPSDirection dir = JPSDirection.fromDelta(toX - fromX, toY - fromY, toZ - fromZ);
+        if (dir == null) {
+            return plugin.isReachable(reachableTo.set(toX, toY, toZ), reachableFrom.set(fromX, fromY, fromZ));
         }
 
-        PathMetric metric = new PathMetric();
-        metric.maxDepth = maxDepth;
-        metric.nodesExplored = nodesExplored;
-        metric.success = path.size() > 0;
-        metric.cost = goal.getCost();
-        metric.size = path.size();
-        metric.time = System.currentTimeMillis() - startMillis;
-        PathMetricsRecorder.recordMetrics(metric);
+        int cached = reachabilityCache.get(fromX, fromY, fromZ, dir);
+        if (cached != JPSReachabilityCache.UNKNOWN) {
+            return cached == JPSReachabilityCache.REACHABLE;
+        }
+        boolean result = plugin.isReachable(reachableTo.set(toX, toY, toZ), reachableFrom.set(fromX, fromY, fromZ));
+        reachabilityCache.put(fromX, fromY, fromZ, dir, result);
+        return result;
     }
 
     /**
-     * Used as a cache key for `reachabilityCache`
+     * @return the snapshot the search reads blocks from, or null if it reads the live world
      */
-    private class VectorPair {
-        Vector3ic a;
-        Vector3ic b;
-
-        public VectorPair(Vector3ic a, Vector3ic b) {
-            this.a = new Vector3i(a);
-            this.b = new Vector3i(b);
-        }
+    public WorldSnapshot getSnapshot() {
+        return snapshot != null ? snapshot : config.snapshot;
+    }
 
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) {
-                return true;
-            }
-            return hashCode() == o.hashCode();
-        }
+    /**
+     * @return the metrics of the last run, whether or not stats are enabled
+     */
+    public PathMetric getMetric() {
+        return metric;
+    }
 
-        @Override
-        public int hashCode() {
-            int result = a.hashCode();
-            result = (result << 16) + b.hashCode();
-            return result;
+    private void recordMetrics() {
+        metric = new PathMetric();
+        metric.maxDepth = maxDepth;
+        metric.nodesExplored = nodesExplored;
+        metric.nodesExpanded = nodesExpanded;
+        metric.success = status == PathStatus.FOUND;
+        metric.status = status;
+        metric.cost = cost;
+        metric.size = path.size();
+        metric.nodes = nodeCount;
+        metric.memoryPerNode = memoryPerNode;
+        metric.time = elapsedNanos / 1e6;
+        metric.queueTime = queueNanos / 1e6;
+        metric.urgency = config.urgency;
+        if (statsEnabled) {
+            PathMetricsRecorder.recordMetrics(metric);
         }
     }
 }
-
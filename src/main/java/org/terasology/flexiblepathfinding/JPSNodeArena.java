@@ -0,0 +1,226 @@
+// Copyright 2026 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.flexiblepathfinding;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Storage for the jump points of a single search, kept in parallel primitive arrays and addressed by index.
+ * <p>
+ * Arenas are pooled: a search obtains one with {@link #obtain()}, and hands it back with {@link #free(JPSNodeArena)}
+ * when it is done. The arrays (as well as the node table, open list and reachability cache owned by the arena) are
+ * reset rather than reallocated, so once a worker has warmed up its arena a search no longer produces garbage per
+ * node. The pool holds at most {@link #MAX_POOLED} arenas, and arenas that grew beyond {@link #MAX_POOLED_BYTES} in
+ * an unusually large search are left to the garbage collector rather than held for every later search.
+ */
+public class JPSNodeArena {
+    public static final int NONE = -1;
+
+    /**
+     * Bytes used per node by the parallel arrays alone (positions, costs, parent index and parent direction).
+     */
+    public static final int BYTES_PER_NODE = 3 * Integer.BYTES + 2 * Double.BYTES + Integer.BYTES + Byte.BYTES;
+
+    static final int MAX_POOLED = 64;
+    static final long MAX_POOLED_BYTES = 16L << 20;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final Queue<JPSNodeArena> pool = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger pooled = new AtomicInteger();
+
+    private int[] x;
+    private int[] y;
+    private int[] z;
+    private double[] cost;
+    private double[] heuristic;
+    private int[] parent;
+    // ordinal of the direction of travel from the parent to the node, or NONE
+    private byte[] parentDirection;
+    private int size;
+
+    private final JPSNodeTable table = new JPSNodeTable(INITIAL_CAPACITY);
+    private final JPSOpenList open = new JPSOpenList(INITIAL_CAPACITY);
+    private final JPSReachabilityCache reachability = new JPSReachabilityCache(INITIAL_CAPACITY);
+
+    public JPSNodeArena() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public JPSNodeArena(int initialCapacity) {
+        initialCapacity = Math.max(initialCapacity, 16);
+        x = new int[initialCapacity];
+        y = new int[initialCapacity];
+        z = new int[initialCapacity];
+        cost = new double[initialCapacity];
+        heuristic = new double[initialCapacity];
+        parent = new int[initialCapacity];
+        parentDirection = new byte[initialCapacity];
+    }
+
+    /**
+     * @return a reset arena, reused from the pool when one is available
+     */
+    public static JPSNodeArena obtain() {
+        JPSNodeArena arena = pool.poll();
+        if (arena == null) {
+            return new JPSNodeArena();
+        }
+        pooled.decrementAndGet();
+        return arena;
+    }
+
+    /**
+     * Returns the arena to the pool, unless the pool is full or the arena is too large to keep.
+     */
+    public static void free(JPSNodeArena arena) {
+        arena.reset();
+        if (arena.getAllocatedBytes() > MAX_POOLED_BYTES) {
+            return;
+        }
+        if (pooled.incrementAndGet() > MAX_POOLED) {
+            pooled.decrementAndGet();
+            return;
+        }
+        pool.offer(arena);
+    }
+
+    static int getPoolSize() {
+        return pooled.get();
+    }
+
+    public void reset() {
+        size = 0;
+        table.clear();
+        open.clear();
+        reachability.clear();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public JPSOpenList getOpenList() {
+        return open;
+    }
+
+    public JPSReachabilityCache getReachabilityCache() {
+        return reachability;
+    }
+
+    /**
+     * @return the index of the node at the given position, creating it if necessary
+     */
+    public int getOrCreate(int px, int py, int pz) {
+        long key = JPSNodeTable.pack(px, py, pz);
+        int index = table.get(key);
+        if (index != JPSNodeTable.NONE) {
+            return index;
+        }
+
+        ensureCapacity(size + 1);
+        index = size++;
+        x[index] = px;
+        y[index] = py;
+        z[index] = pz;
+        cost[index] = 0;
+        heuristic[index] = 0;
+        parent[index] = NONE;
+        parentDirection[index] = NONE;
+        table.put(key, index);
+        return index;
+    }
+
+    /**
+     * @return the index of the node at the given position, or {@link #NONE} if it has not been created
+     */
+    public int find(int px, int py, int pz) {
+        return table.get(px, py, pz);
+    }
+
+    public int getX(int node) {
+        return x[node];
+    }
+
+    public int getY(int node) {
+        return y[node];
+    }
+
+    public int getZ(int node) {
+        return z[node];
+    }
+
+    public double getCost(int node) {
+        return cost[node];
+    }
+
+    public void setCost(int node, double value) {
+        cost[node] = value;
+    }
+
+    public double getHeuristic(int node) {
+        return heuristic[node];
+    }
+
+    public void setHeuristic(int node, double value) {
+        heuristic[node] = value;
+    }
+
+    public int getParent(int node) {
+        return parent[node];
+    }
+
+    public void setParent(int node, int parentNode, JPSDirection direction) {
+        parent[node] = parentNode;
+        parentDirection[node] = (byte) (direction == null ? NONE : direction.ordinal());
+    }
+
+    public boolean hasParent(int node) {
+        return parent[node] != NONE;
+    }
+
+    /**
+     * @return the direction of travel from the parent to the node, or null for nodes without a parent
+     */
+    public JPSDirection getParentDirection(int node) {
+        byte ordinal = parentDirection[node];
+        return ordinal == NONE ? null : JPSDirection.values()[ordinal];
+    }
+
+    public double distance(int a, int b) {
+        return Math.sqrt(distanceSquared(a, b));
+    }
+
+    public double distanceSquared(int a, int b) {
+        long dx = x[a] - x[b];
+        long dy = y[a] - y[b];
+        long dz = z[a] - z[b];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * @return the approximate number of bytes held by this arena, including its node table, open list and
+     * reachability cache
+     */
+    public long getAllocatedBytes() {
+        long nodeCapacity = x.length;
+        return nodeCapacity * BYTES_PER_NODE + table.getAllocatedBytes() + open.getAllocatedBytes()
+            + reachability.getAllocatedBytes();
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= x.length) {
+            return;
+        }
+        int newLength = Math.max(capacity, x.length * 2);
+        x = Arrays.copyOf(x, newLength);
+        y = Arrays.copyOf(y, newLength);
+        z = Arrays.copyOf(z, newLength);
+        cost = Arrays.copyOf(cost, newLength);
+        heuristic = Arrays.copyOf(heuristic, newLength);
+        parent = Arrays.copyOf(parent, newLength);
+        parentDirection = Arrays.copyOf(parentDirection, newLength);
+    }
+}
@@ -0,0 +1,169 @@
+// Copyright 2026 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.flexiblepathfinding;
+
+import org.joml.Vector3ic;
+
+import java.util.Arrays;
+
+/**
+ * Maps block positions to node indices for a single search.
+ * <p>
+ * Positions are bit-packed into a single long (21 bits per axis, so each coordinate must lie within
+ * [{@link #MIN_COORDINATE}, {@link #MAX_COORDINATE}]) and stored in an open-addressing table with linear probing.
+ * Lookups and insertions do not allocate, and the backing arrays are kept when the table is cleared so it can be
+ * reused by the next search.
+ */
+public class JPSNodeTable {
+    public static final int NONE = -1;
+    public static final int MIN_COORDINATE = -(1 << 20);
+    public static final int MAX_COORDINATE = (1 << 20) - 1;
+
+    private static final int BITS = 21;
+    private static final long MASK = (1L << BITS) - 1;
+    private static final float MAX_LOAD = 0.5f;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int threshold;
+
+    public JPSNodeTable() {
+        this(1024);
+    }
+
+    public JPSNodeTable(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max((int) (expectedSize / MAX_LOAD), 16) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * @return true if every coordinate of the position fits into a key
+     */
+    public static boolean inRange(int x, int y, int z) {
+        // shifted into [0, 2^21) if in range, anything else has higher bits set
+        return ((x - MIN_COORDINATE) | (y - MIN_COORDINATE) | (z - MIN_COORDINATE)) >>> BITS == 0;
+    }
+
+    public static boolean inRange(Vector3ic pos) {
+        return inRange(pos.x(), pos.y(), pos.z());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the position is not {@link #inRange in range}, as it would share its key
+     * with another one
+     */
+    public static long pack(int x, int y, int z) {
+        if (!inRange(x, y, z)) {
+            throw new IllegalArgumentException("Position (" + x + ", " + y + ", " + z + ") is out of range");
+        }
+        return ((x & MASK) << (2 * BITS)) | ((y & MASK) << BITS) | (z & MASK);
+    }
+
+    public static long pack(Vector3ic pos) {
+        return pack(pos.x(), pos.y(), pos.z());
+    }
+
+    public static int unpackX(long key) {
+        return (int) (key << (64 - 3 * BITS) >> (64 - BITS));
+    }
+
+    public static int unpackY(long key) {
+        return (int) (key << (64 - 2 * BITS) >> (64 - BITS));
+    }
+
+    public static int unpackZ(long key) {
+        return (int) (key << (64 - BITS) >> (64 - BITS));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the node index stored for the position, or {@link #NONE}
+     */
+    public int get(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (values[slot] != NONE) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NONE;
+    }
+
+    public int get(int x, int y, int z) {
+        return get(pack(x, y, z));
+    }
+
+    public void put(long key, int value) {
+        if (value == NONE) {
+            throw new IllegalArgumentException("Cannot store " + NONE + " as a node index");
+        }
+        if (size >= threshold) {
+            rehash(keys.length * 2);
+        }
+        if (insert(keys, values, key, value)) {
+            size++;
+        }
+    }
+
+    public void put(int x, int y, int z, int value) {
+        put(pack(x, y, z), value);
+    }
+
+    public long getAllocatedBytes() {
+        return (long) keys.length * (Long.BYTES + Integer.BYTES);
+    }
+
+    /**
+     * Removes all entries while keeping the allocated arrays.
+     */
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(values, NONE);
+            size = 0;
+        }
+    }
+
+    private static boolean insert(long[] keys, int[] values, long key, int value) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (values[slot] != NONE) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        return true;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, NONE);
+        threshold = (int) (capacity * MAX_LOAD);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != NONE) {
+                insert(keys, values, oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
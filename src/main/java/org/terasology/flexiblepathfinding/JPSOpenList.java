@@ -0,0 +1,208 @@
+// Copyright 2026 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.flexiblepathfinding;
+
+import java.util.Arrays;
+
+/**
+ * The open list used by {@link JPSImpl}: an indexed d-ary min-heap of node indices.
+ * <p>
+ * Every node index is queued at most once. Pushing a node that is already queued moves it to its new key in place
+ * (decrease-key or increase-key), so the heap never holds stale duplicates and each operation is O(log n).
+ * <p>
+ * Nodes with equal keys are polled in last-in first-out order, matching the behaviour of the stable sort the search
+ * used before.
+ */
+public class JPSOpenList {
+    private static final int ARITY = 4;
+    private static final int ABSENT = -1;
+
+    // heap slot -> node index / key / insertion order
+    private int[] nodes;
+    private double[] keys;
+    private long[] order;
+    private int size;
+    private long nextOrder;
+    // number of key comparisons so far, for tests of the heap's complexity
+    private long comparisons;
+
+    // node index -> heap slot
+    private int[] slots;
+
+    public JPSOpenList() {
+        this(64);
+    }
+
+    public JPSOpenList(int initialCapacity) {
+        initialCapacity = Math.max(initialCapacity, 1);
+        nodes = new int[initialCapacity];
+        keys = new double[initialCapacity];
+        order = new long[initialCapacity];
+        slots = new int[initialCapacity];
+        Arrays.fill(slots, ABSENT);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int node) {
+        return node < slots.length && slots[node] != ABSENT;
+    }
+
+    /**
+     * Queues a node with the given key, or re-keys it if it is already queued.
+     */
+    public void push(int node, double key) {
+        ensureNodeCapacity(node);
+        int slot = slots[node];
+        if (slot == ABSENT) {
+            ensureHeapCapacity(size + 1);
+            slot = size++;
+            nodes[slot] = node;
+            slots[node] = slot;
+        } else if (key > keys[slot]) {
+            keys[slot] = key;
+            order[slot] = nextOrder++;
+            siftDown(slot);
+            return;
+        }
+        keys[slot] = key;
+        order[slot] = nextOrder++;
+        siftUp(slot);
+    }
+
+    /**
+     * Removes and returns the node with the smallest key.
+     */
+    public int poll() {
+        if (size == 0) {
+            throw new IllegalStateException("Open list is empty");
+        }
+        int result = nodes[0];
+        slots[result] = ABSENT;
+        size--;
+        if (size > 0) {
+            move(size, 0);
+            siftDown(0);
+        }
+        return result;
+    }
+
+    public int peek() {
+        if (size == 0) {
+            throw new IllegalStateException("Open list is empty");
+        }
+        return nodes[0];
+    }
+
+    public double peekKey() {
+        if (size == 0) {
+            throw new IllegalStateException("Open list is empty");
+        }
+        return keys[0];
+    }
+
+    long getComparisons() {
+        return comparisons;
+    }
+
+    public long getAllocatedBytes() {
+        return (long) nodes.length * (Integer.BYTES + Double.BYTES + Long.BYTES) + (long) slots.length * Integer.BYTES;
+    }
+
+    /**
+     * Empties the list while keeping the allocated arrays for the next search.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            slots[nodes[i]] = ABSENT;
+        }
+        size = 0;
+        nextOrder = 0;
+    }
+
+    private boolean before(int a, int b) {
+        comparisons++;
+        if (keys[a] != keys[b]) {
+            return keys[a] < keys[b];
+        }
+        return order[a] > order[b];
+    }
+
+    private void siftUp(int slot) {
+        while (slot > 0) {
+            int parent = (slot - 1) / ARITY;
+            if (!before(slot, parent)) {
+                break;
+            }
+            swap(slot, parent);
+            slot = parent;
+        }
+    }
+
+    private void siftDown(int slot) {
+        while (true) {
+            int first = slot * ARITY + 1;
+            if (first >= size) {
+                break;
+            }
+            int best = first;
+            int last = Math.min(first + ARITY, size);
+            for (int child = first + 1; child < last; child++) {
+                if (before(child, best)) {
+                    best = child;
+                }
+            }
+            if (!before(best, slot)) {
+                break;
+            }
+            swap(slot, best);
+            slot = best;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int node = nodes[a];
+        double key = keys[a];
+        long ord = order[a];
+
+        nodes[a] = nodes[b];
+        keys[a] = keys[b];
+        order[a] = order[b];
+        slots[nodes[a]] = a;
+
+        nodes[b] = node;
+        keys[b] = key;
+        order[b] = ord;
+        slots[node] = b;
+    }
+
+    private void move(int from, int to) {
+        nodes[to] = nodes[from];
+        keys[to] = keys[from];
+        order[to] = order[from];
+        slots[nodes[to]] = to;
+    }
+
+    private void ensureHeapCapacity(int capacity) {
+        if (capacity > nodes.length) {
+            int newLength = Math.max(capacity, nodes.length * 2);
+            nodes = Arrays.copyOf(nodes, newLength);
+            keys = Arrays.copyOf(keys, newLength);
+            order = Arrays.copyOf(order, newLength);
+        }
+    }
+
+    private void ensureNodeCapacity(int node) {
+        if (node >= slots.length) {
+            int oldLength = slots.length;
+            slots = Arrays.copyOf(slots, Math.max(node + 1, oldLength * 2));
+            Arrays.fill(slots, oldLength, slots.length, ABSENT);
+        }
+    }
+}
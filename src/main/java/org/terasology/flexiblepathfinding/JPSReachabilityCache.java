@@ -0,0 +1,131 @@
+// Copyright 2026 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.flexiblepathfinding;
+
+import java.util.Arrays;
+
+/**
+ * Remembers the answers of {@link org.terasology.flexiblepathfinding.plugins.JPSPlugin#isReachable} for a single
+ * search, and which of the moves cost more than their length in cost-aware searches.
+ * <p>
+ * A move is identified exactly by the position it starts from and its {@link JPSDirection}. Each starting position
+ * gets one entry in a {@link JPSNodeTable}, holding a mask of the directions that have been asked about, a mask of
+ * the answers and a mask of the weighted moves. Nothing is boxed, and like the rest of a {@link JPSNodeArena} the
+ * arrays are kept when the cache is cleared.
+ */
+public class JPSReachabilityCache {
+    public static final int UNKNOWN = -1;
+    public static final int NOT_REACHABLE = 0;
+    public static final int REACHABLE = 1;
+
+    private final JPSNodeTable table;
+    // entry -> mask of the directions asked about / mask of the reachable ones among those
+    private int[] known;
+    private int[] reachable;
+    // entry -> mask of the reachable directions whose moves cost more than their length, or UNKNOWN
+    private int[] weighted;
+    private int size;
+
+    public JPSReachabilityCache() {
+        this(1024);
+    }
+
+    public JPSReachabilityCache(int expectedSize) {
+        expectedSize = Math.max(expectedSize, 16);
+        table = new JPSNodeTable(expectedSize);
+        known = new int[expectedSize];
+        reachable = new int[expectedSize];
+        weighted = new int[expectedSize];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return {@link #REACHABLE}, {@link #NOT_REACHABLE} or {@link #UNKNOWN} for the move from (x, y, z) in dir
+     */
+    public int get(int x, int y, int z, JPSDirection dir) {
+        int entry = table.get(x, y, z);
+        if (entry == JPSNodeTable.NONE || (known[entry] & dir.bit()) == 0) {
+            return UNKNOWN;
+        }
+        return (reachable[entry] & dir.bit()) != 0 ? REACHABLE : NOT_REACHABLE;
+    }
+
+    /**
+     * @return the mask of directions reachable from (x, y, z) if all of them are known, or {@link #UNKNOWN}
+     */
+    public int getReachableMask(int x, int y, int z) {
+        int entry = table.get(x, y, z);
+        if (entry == JPSNodeTable.NONE || known[entry] != JPSForcedNeighbors.ALL_DIRECTIONS) {
+            return UNKNOWN;
+        }
+        return reachable[entry];
+    }
+
+    public void put(int x, int y, int z, JPSDirection dir, boolean isReachable) {
+        int entry = getOrAdd(x, y, z);
+        known[entry] |= dir.bit();
+        if (isReachable) {
+            reachable[entry] |= dir.bit();
+        }
+    }
+
+    /**
+     * Records the answers for all directions from (x, y, z) at once.
+     */
+    public void putMask(int x, int y, int z, int reachableMask) {
+        int entry = getOrAdd(x, y, z);
+        known[entry] = JPSForcedNeighbors.ALL_DIRECTIONS;
+        reachable[entry] = reachableMask;
+    }
+
+    /**
+     * @return the mask of the reachable directions from (x, y, z) whose moves cost more than their length, or
+     * {@link #UNKNOWN}
+     */
+    public int getWeightedMask(int x, int y, int z) {
+        int entry = table.get(x, y, z);
+        return entry == JPSNodeTable.NONE ? UNKNOWN : weighted[entry];
+    }
+
+    public void putWeightedMask(int x, int y, int z, int weightedMask) {
+        weighted[getOrAdd(x, y, z)] = weightedMask;
+    }
+
+    private int getOrAdd(int x, int y, int z) {
+        long key = JPSNodeTable.pack(x, y, z);
+        int entry = table.get(key);
+        if (entry == JPSNodeTable.NONE) {
+            ensureCapacity(size + 1);
+            entry = size++;
+            known[entry] = 0;
+            reachable[entry] = 0;
+            weighted[entry] = UNKNOWN;
+            table.put(key, entry);
+        }
+        return entry;
+    }
+
+    public long getAllocatedBytes() {
+        return (long) known.length * 3 * Integer.BYTES + table.getAllocatedBytes();
+    }
+
+    /**
+     * Forgets all answers while keeping the allocated arrays.
+     */
+    public void clear() {
+        size = 0;
+        table.clear();
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > known.length) {
+            int newLength = Math.max(capacity, known.length * 2);
+            known = Arrays.copyOf(known, newLength);
+            reachable = Arrays.copyOf(reachable, newLength);
+            weighted = Arrays.copyOf(weighted, newLength);
+        }
+    }
+}
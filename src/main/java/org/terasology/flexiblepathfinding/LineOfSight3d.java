@@ -173,6 +173,6 @@ public class LineOfSight3d {
         int y0 = y + ((sy - 1) / 2);
         int z0 = z + ((sz - 1) / 2);
         Block block = world.getBlock(x0, y0, z0);
-        return block != null && !block.isPenetrable();
+        return block != null && (BlockFlagTable.get(block) & WorldSnapshot.SOLID) != 0;
     }
 }
@@ -0,0 +1,65 @@
+// Copyright 2026 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.flexiblepathfinding;
+
+import org.joml.Vector3i;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a path request: the path, if any, and why the search ended.
+ */
+public class PathResult {
+    private final PathStatus status;
+    private final List<Vector3i> path;
+    private final Vector3i target;
+    private final long snapshotId;
+
+    public PathResult(PathStatus status, List<Vector3i> path, Vector3i target) {
+        this(status, path, target, -1);
+    }
+
+    public PathResult(PathStatus status, List<Vector3i> path, Vector3i target, long snapshotId) {
+        this.status = status;
+        this.path = Collections.unmodifiableList(path);
+        this.target = target;
+        this.snapshotId = snapshotId;
+    }
+
+    public PathStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the path from the start to the target, or towards it if the status is {@link PathStatus#PARTIAL}. Empty
+     * if no path was found.
+     */
+    public List<Vector3i> getPath() {
+        return path;
+    }
+
+    public Vector3i getTarget() {
+        return target;
+    }
+
+    /**
+     * @return the {@link WorldSnapshot#getId() id} of the snapshot the path was found in, or -1 if the search read the
+     * live world
+     */
+    public long getSnapshotId() {
+        return snapshotId;
+    }
+
+    /**
+     * @return true if the path leads to the target
+     */
+    public boolean isFound() {
+        return status == PathStatus.FOUND;
+    }
+
+    @Override
+    public String toString() {
+        return status + " " + path.size() + " steps to " + target;
+    }
+}
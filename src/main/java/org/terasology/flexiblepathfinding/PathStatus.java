@@ -0,0 +1,39 @@
+// Copyright 2026 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.flexiblepathfinding;
+
+/**
+ * The outcome of a single path search.
+ */
+public enum PathStatus {
+    /**
+     * A path to the goal (or to within `goalDistance` of it) was found.
+     */
+    FOUND,
+    /**
+     * The search failed, but `JPSConfig.partialPath` was set, so the path leads to the explored position closest to
+     * the goal instead.
+     */
+    PARTIAL,
+    /**
+     * The search ran out of nodes to explore without reaching the goal.
+     */
+    UNREACHABLE,
+    /**
+     * The search gave up after exploring `JPSConfig.maxExploredNodes` nodes.
+     */
+    BUDGET_EXHAUSTED,
+    /**
+     * The search gave up after running for `JPSConfig.maxTime` seconds.
+     */
+    TIMEOUT,
+    /**
+     * The search was interrupted before it finished, e.g. because its request was cancelled.
+     */
+    CANCELLED,
+    /**
+     * The request was refused, because the queue was full or the requester had a request pending already, or it was
+     * dropped from a full queue to make room for another one (see `PathfinderSystemConfig.overflowPolicy`).
+     */
+    REJECTED
+}
@@ -0,0 +1,19 @@
+// Copyright 2026 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.flexiblepathfinding;
+
+/**
+ * How soon a requester needs its path. {@link PathfinderSystem} serves all queued requests of a more urgent class
+ * before any of a less urgent one.
+ */
+public enum PathUrgency {
+    /**
+     * Someone is waiting for this path right now, e.g. a mob repathing in combat.
+     */
+    URGENT,
+    NORMAL,
+    /**
+     * Nobody is waiting for this path, e.g. a mob wandering around.
+     */
+    IDLE
+}
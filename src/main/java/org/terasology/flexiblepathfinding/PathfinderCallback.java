@@ -8,4 +8,14 @@ import java.util.List;
 
 public interface PathfinderCallback {
     void pathReady(List<Vector3i> path, Vector3i target);
+
+    /**
+     * Called instead of {@link #pathReady(List, Vector3i)}, with the status of the search. Unlike that one, this is
+     * also called for cancelled requests.
+     */
+    default void pathReady(PathResult result) {
+        if (result.getStatus() != PathStatus.CANCELLED) {
+            pathReady(result.getPath(), result.getTarget());
+        }
+    }
 }
@@ -0,0 +1,210 @@
+// Copyright 2026 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.flexiblepathfinding;
+
+import com.google.common.collect.Lists;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Runs the {@link PathfinderTask}s of a {@link PathfinderSystem} in the order of their priority.
+ * <p>
+ * In {@link PathfinderSystemConfig.ThreadMode#PLATFORM} mode, each worker thread takes the next task off the queue and
+ * runs it. In {@link PathfinderSystemConfig.ThreadMode#VIRTUAL} mode, a dispatcher thread takes the next task off the
+ * queue whenever fewer than `workers` tasks are running, and starts a virtual thread for it.
+ * <p>
+ * While the queue holds `queueCapacity` requests, new ones are handled according to the
+ * {@link PathfinderSystemConfig.OverflowPolicy}. Requests dropped to make room are handed to the shed handler.
+ * <p>
+ * Virtual threads are looked up reflectively, as they are not available on every JVM the engine runs on.
+ */
+public class PathfinderScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(PathfinderScheduler.class);
+
+    private final PathfinderSystemConfig config;
+    private final PriorityBlockingQueue<PathfinderTask> queue;
+    private final Consumer<PathfinderTask> shedHandler;
+    private final List<Thread> threads = Lists.newArrayList();
+    // only used in VIRTUAL mode
+    private ExecutorService virtualThreads;
+    private Semaphore running;
+
+    public PathfinderScheduler(PathfinderSystemConfig config) {
+        this(config, task -> { });
+    }
+
+    public PathfinderScheduler(PathfinderSystemConfig config, Consumer<PathfinderTask> shedHandler) {
+        this.config = config;
+        this.shedHandler = shedHandler;
+        this.queue = new PriorityBlockingQueue<>(Math.max(Math.min(config.queueCapacity, 1024), 1));
+
+        if (config.threadMode == PathfinderSystemConfig.ThreadMode.VIRTUAL) {
+            virtualThreads = createVirtualThreadExecutor();
+            if (virtualThreads == null) {
+                logger.warn("Virtual threads are not available, using {} platform threads instead", config.workers);
+            }
+        }
+
+        if (virtualThreads != null) {
+            running = new Semaphore(config.workers);
+            threads.add(new Thread(this::dispatch, "PathfinderDispatcher"));
+        } else {
+            for (int i = 0; i < config.workers; i++) {
+                threads.add(new Thread(this::work, "PathfinderWorker-" + i));
+            }
+        }
+        for (Thread thread : threads) {
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * @return true if the searches run on virtual threads
+     */
+    public boolean isVirtual() {
+        return virtualThreads != null;
+    }
+
+    /**
+     * Queues a new request, dropping a queued one if the queue is full and the overflow policy allows it.
+     *
+     * @return false if the request was refused
+     */
+    public boolean offer(PathfinderTask task) {
+        PathfinderTask shed = null;
+        synchronized (this) {
+            if (queue.size() >= config.queueCapacity) {
+                shed = selectShed(task);
+                if (shed == null) {
+                    return false;
+                }
+                if (!queue.remove(shed)) {
+                    // a worker took it in the meantime, which made room as well
+                    shed = null;
+                }
+            }
+            task.onQueued();
+            queue.offer(task);
+        }
+        if (shed != null) {
+            shedHandler.accept(shed);
+        }
+        return true;
+    }
+
+    /**
+     * @return true if {@link #offer} would accept the request now. Other threads may fill the queue before it is
+     * offered, so it can still be refused.
+     */
+    public synchronized boolean hasRoomFor(PathfinderTask task) {
+        return queue.size() < config.queueCapacity || selectShed(task) != null;
+    }
+
+    /**
+     * @return the queued request to drop in favour of the new one, or null if the new one should be refused
+     */
+    private PathfinderTask selectShed(PathfinderTask task) {
+        switch (config.overflowPolicy) {
+            case DROP_OLDEST:
+                return queue.stream().filter(queued -> !queued.isTerminateSignal())
+                        .min(Comparator.comparingLong(PathfinderTask::getQueuedAt)).orElse(null);
+            case DROP_LOWEST_PRIORITY:
+                PathfinderTask lowest = queue.stream().filter(queued -> !queued.isTerminateSignal())
+                        .max(Comparator.naturalOrder()).orElse(null);
+                return lowest != null && lowest.compareTo(task) > 0 ? lowest : null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Queues a request that has been accepted before, e.g. a time-sliced search that yielded. Ignores the capacity.
+     */
+    public void requeue(PathfinderTask task) {
+        task.onQueued();
+        queue.offer(task);
+    }
+
+    /**
+     * Takes a cancelled request out of the queue, so that it no longer counts against the capacity.
+     *
+     * @return false if it was not queued, e.g. because a worker has just taken it
+     */
+    public boolean remove(PathfinderTask task) {
+        return queue.remove(task);
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Stops the threads once they have worked through the tasks queued before this call.
+     */
+    public void shutdown() {
+        for (int i = 0; i < threads.size(); i++) {
+            queue.offer(new ShutdownTask());
+        }
+    }
+
+    private void work() {
+        try {
+            while (true) {
+                PathfinderTask task = queue.take();
+                if (task.isTerminateSignal()) {
+                    return;
+                }
+                runSafely(task);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void dispatch() {
+        try {
+            while (true) {
+                running.acquire();
+                PathfinderTask task = queue.take();
+                if (task.isTerminateSignal()) {
+                    virtualThreads.shutdown();
+                    return;
+                }
+                virtualThreads.execute(() -> {
+                    try {
+                        runSafely(task);
+                    } finally {
+                        running.release();
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void runSafely(PathfinderTask task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            logger.error("Pathfinder task {} failed", task.getName(), e);
+        }
+    }
+
+    private static ExecutorService createVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | SecurityException e) {
+            return null;
+        }
+    }
+}
@@ -2,30 +2,45 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.terasology.flexiblepathfinding;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Sets;
+import com.google.common.collect.Maps;
+import org.joml.Vector3f;
 import org.joml.Vector3i;
+import org.joml.Vector3ic;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.terasology.engine.entitySystem.entity.EntityManager;
 import org.terasology.engine.entitySystem.entity.EntityRef;
 import org.terasology.engine.entitySystem.event.ReceiveEvent;
 import org.terasology.engine.entitySystem.systems.BaseComponentSystem;
 import org.terasology.engine.entitySystem.systems.RegisterMode;
 import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.entitySystem.systems.UpdateSubscriberSystem;
 import org.terasology.engine.logic.console.commandSystem.annotations.Command;
+import org.terasology.engine.logic.location.LocationComponent;
+import org.terasology.engine.network.ClientComponent;
 import org.terasology.engine.registry.In;
 import org.terasology.engine.registry.Share;
-import org.terasology.engine.utilities.concurrency.TaskMaster;
 import org.terasology.engine.world.WorldProvider;
 import org.terasology.flexiblepathfinding.debug.PathMetricsRequestEvent;
 import org.terasology.flexiblepathfinding.debug.PathMetricsResponseEvent;
 import org.terasology.flexiblepathfinding.metrics.Histogram;
 import org.terasology.flexiblepathfinding.metrics.PathMetric;
 import org.terasology.flexiblepathfinding.metrics.PathMetricsRecorder;
+import org.terasology.flexiblepathfinding.plugins.JPSPlugin;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -44,34 +59,110 @@ import java.util.stream.Collectors;
  */
 @RegisterSystem(RegisterMode.AUTHORITY)
 @Share(value = PathfinderSystem.class)
-public class PathfinderSystem extends BaseComponentSystem {
+public class PathfinderSystem extends BaseComponentSystem implements UpdateSubscriberSystem {
 
     private static final Logger logger = LoggerFactory.getLogger(PathfinderSystem.class);
+    // searches of a batch that have to share a reachability cache before the batch is spread over another worker
+    private static final int MIN_CHAIN_LENGTH = 8;
 
-    private int nextId;
-    private Set<EntityRef> entitiesWithPendingTasks = Sets.newHashSet();
+    private final AtomicInteger nextId = new AtomicInteger();
+    // updated by the workers as requests complete, so only ever changed atomically
+    private final Map<EntityRef, PathfinderTask> entitiesWithPendingTasks = new ConcurrentHashMap<>();
+    // pending requests by id, so that they can be cancelled
+    private final Map<Integer, PathfinderTask> tasks = new ConcurrentHashMap<>();
+    // requests cancelled before a worker got to them, and while a worker was searching
+    private final AtomicInteger cancelledQueued = new AtomicInteger();
+    private final AtomicInteger cancelledRunning = new AtomicInteger();
+    // requests refused because the queue was full, and queued requests dropped to make room for others
+    private final AtomicInteger rejected = new AtomicInteger();
+    private final AtomicInteger shed = new AtomicInteger();
 
-    private TaskMaster<PathfinderTask> workerTaskMaster = TaskMaster.createFIFOTaskMaster("PathfinderWorker", 4);
+    // results waiting for the main thread, in CallbackDelivery.MAIN_THREAD mode
+    private final Queue<Runnable> completedRequests = new ConcurrentLinkedQueue<>();
+    // where the players were at the last update, for requests made from any thread to be ordered by
+    private volatile List<Vector3f> playerPositions = Collections.emptyList();
 
-    private TaskMaster<PathfinderTask> taskMaster = TaskMaster.createPriorityTaskMaster(
-        "PathfinderQueue", 1, 1024
-    );
+    private PathfinderSystemConfig config = new PathfinderSystemConfig();
+    // started on the first request, so that other systems can still change the config during initialisation
+    private PathfinderScheduler scheduler;
+    // once set, requests are refused rather than starting the workers again
+    private boolean shutDown;
 
     @In
     private WorldProvider world;
 
+    @In
+    private EntityManager entityManager;
+
     @Override
     public void initialise() {
+        // the blocks of a previous game may have been registered under the same ids
+        BlockFlagTable.clear();
         logger.info("PathfinderSystem started");
+    }
 
-        // TODO: HACK: We offer this taskmaster a shutdown task just to use its raw executor service directly
-        workerTaskMaster.offer(new ShutdownTask(null, null, null));
+    /**
+     * Stops the workers once they have run the requests queued so far. Requests made afterwards are refused, and the
+     * workers are not started again.
+     */
+    @Override
+    public synchronized void shutdown() {
+        shutDown = true;
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+        BlockFlagTable.clear();
     }
 
+    /**
+     * Records where the players are, and calls the callbacks of the requests completed since the last update in
+     * CallbackDelivery.MAIN_THREAD mode.
+     */
     @Override
-    public void shutdown() {
-        taskMaster.shutdown(new ShutdownTask(null, null, null), false);
-        workerTaskMaster.shutdown(new ShutdownTask(null, null, null), false);
+    public void update(float delta) {
+        updatePlayerPositions();
+
+        Runnable delivery;
+        while ((delivery = completedRequests.poll()) != null) {
+            try {
+                delivery.run();
+            } catch (RuntimeException e) {
+                logger.error("Path callback failed", e);
+            }
+        }
+    }
+
+    /**
+     * Sets the world snapshots are taken from, which is injected otherwise.
+     */
+    void setWorld(WorldProvider world) {
+        this.world = world;
+    }
+
+    public PathfinderSystemConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Changes the worker threads and the queue. Only possible until the first path is requested.
+     */
+    public synchronized void setConfig(PathfinderSystemConfig config) {
+        if (scheduler != null) {
+            throw new IllegalStateException("The pathfinder threads are already running");
+        }
+        this.config = config;
+    }
+
+    /**
+     * @return the scheduler, started on first use, or null once the system has been shut down
+     */
+    private synchronized PathfinderScheduler getScheduler() {
+        if (scheduler == null && !shutDown) {
+            scheduler = new PathfinderScheduler(config, this::shed);
+            logger.info("Pathfinder threads started: {}, virtual: {}", config, scheduler.isVirtual());
+        }
+        return scheduler;
     }
 
     public int requestPath(EntityRef requester, Vector3i target, List<Vector3i> start) {
@@ -84,27 +175,340 @@ public class PathfinderSystem extends BaseComponentSystem {
         return requestPath(config, callback);
     }
 
+    /**
+     * @return the id of the request, to be passed to {@link #cancel(int)}, or -1 if it was refused, e.g. because the
+     * system has been shut down
+     */
     public int requestPath(JPSConfig config, PathfinderCallback callback) {
+        PathfinderTask task = createTask(config, callback);
+        if (task == null || !submit(Collections.singletonList(task), snapshotFor(Collections.singletonList(config)))) {
+            return -1;
+        }
+        return task.getId();
+    }
+
+    /**
+     * Like {@link #requestPath(JPSConfig, PathfinderCallback)}, but completes the returned future with the result
+     * instead, on the thread callbacks are called on. Cancelling the future cancels the request. If the request is
+     * refused, the result has the status {@link PathStatus#REJECTED}.
+     */
+    public CompletableFuture<PathResult> requestPath(JPSConfig config) {
+        CompletableFuture<PathResult> future = new CompletableFuture<>();
+        PathfinderTask task = createTask(config, completing(future));
+        if (task == null || !submit(Collections.singletonList(task), snapshotFor(Collections.singletonList(config)))) {
+            future.complete(rejected(config));
+        } else {
+            cancelWith(future, task);
+        }
+        return future;
+    }
+
+    /**
+     * Requests a batch of paths at once, e.g. for a wave of mobs. Searches whose plugins are equal and which read the
+     * same snapshot share their answers to {@link JPSPlugin#isReachable}, so that a move several of them consider is
+     * only checked against the world once. To do so, they run one after another on a single worker, so large groups are
+     * split into up to one chain of at least {@link #MIN_CHAIN_LENGTH} searches per worker.
+     * <p>
+     * Each search is a request of its own, which may be refused or cancelled like any other.
+     *
+     * @return a future for the results, in the order of the configs
+     */
+    public CompletableFuture<List<PathResult>> requestPaths(Collection<JPSConfig> configs) {
+        List<CompletableFuture<PathResult>> futures = Lists.newArrayList();
+        Map<PathfinderTask, CompletableFuture<PathResult>> futuresByTask = Maps.newHashMap();
+        // keyed by plugin and the snapshot of the config, since the searches of a group see the same blocks
+        Map<List<Object>, List<PathfinderTask>> groups = Maps.newLinkedHashMap();
+        Supplier<WorldSnapshot> snapshot = snapshotFor(configs);
+        for (JPSConfig config : configs) {
+            CompletableFuture<PathResult> future = new CompletableFuture<>();
+            futures.add(future);
+            PathfinderTask task = createTask(config, completing(future));
+            if (task == null) {
+                future.complete(rejected(config));
+            } else {
+                futuresByTask.put(task, future);
+                groups.computeIfAbsent(Arrays.asList(config.plugin, config.snapshot), key -> Lists.newArrayList())
+                        .add(task);
+            }
+        }
+
+        for (List<PathfinderTask> group : groups.values()) {
+            int chains = Math.max(1, Math.min(config.workers, group.size() / MIN_CHAIN_LENGTH));
+            for (List<PathfinderTask> chain : Lists.partition(group, (group.size() + chains - 1) / chains)) {
+                submitChain(chain, snapshot, futuresByTask);
+            }
+        }
+
+        CompletableFuture<?>[] all = futures.toArray(new CompletableFuture<?>[0]);
+        return CompletableFuture.allOf(all)
+                .thenApply(v -> futures.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+    }
+
+    /**
+     * Queues searches to run one after another on a single worker, sharing a reachability cache.
+     */
+    private void submitChain(List<PathfinderTask> chain, Supplier<WorldSnapshot> snapshot,
+                             Map<PathfinderTask, CompletableFuture<PathResult>> futures) {
+        JPSReachabilityCache reachabilityCache = new JPSReachabilityCache();
+        for (int i = 0; i < chain.size(); i++) {
+            chain.get(i).setReachabilityCache(reachabilityCache);
+            if (i + 1 < chain.size()) {
+                chain.get(i).setNext(chain.get(i + 1));
+            }
+        }
+        // only the first search of a chain is queued, each one queues the next when it is done
+        boolean accepted = submit(chain, snapshot);
+        for (PathfinderTask task : chain) {
+            CompletableFuture<PathResult> future = futures.get(task);
+            if (accepted) {
+                cancelWith(future, task);
+            } else {
+                completePathFor(task);
+                future.complete(rejected(task.getConfig()));
+            }
+        }
+    }
+
+    /**
+     * @return a new task for the request, or null if the requester has a request pending already
+     */
+    private PathfinderTask createTask(JPSConfig config, PathfinderCallback callback) {
+        PathfinderTask task = new PathfinderTask(config, callback, this);
+        task.setId(nextId.getAndIncrement());
         if (config.requester != null && config.requester.exists()) {
-            if (entitiesWithPendingTasks.contains(config.requester)) {
-                return -1;
+            PathfinderTask pending = entitiesWithPendingTasks.putIfAbsent(config.requester, task);
+            while (pending != null) {
+                if (!config.supersede && !this.config.coalesceRequests) {
+                    return null;
+                }
+                if (entitiesWithPendingTasks.replace(config.requester, pending, task)) {
+                    if (cancel(pending) == PathfinderTask.State.QUEUED && this.config.coalesceRequests) {
+                        task.takePlaceOf(pending);
+                    }
+                    break;
+                }
+                // the pending request completed in the meantime
+                pending = entitiesWithPendingTasks.putIfAbsent(config.requester, task);
+            }
+        }
+
+        task.setPlayerDistance(distanceToNearestPlayer(config.start));
+        tasks.put(task.getId(), task);
+        return task;
+    }
+
+    /**
+     * @return the snapshot of the corridor around the requests that do not bring their own snapshot, or null if
+     * snapshots are disabled or it would be too large. It is taken on the first call, which {@link #submit} only makes
+     * once the queue has room, so that refused requests do not pay for it.
+     */
+    private Supplier<WorldSnapshot> snapshotFor(Collection<JPSConfig> requests) {
+        if (!config.takeSnapshots || world == null) {
+            return null;
+        }
+        Vector3i min = null;
+        Vector3i max = null;
+        for (JPSConfig request : requests) {
+            if (request.snapshot != null) {
+                continue;
+            }
+            if (min == null) {
+                min = new Vector3i(request.start);
+                max = new Vector3i(request.start);
+            }
+            min.min(request.start).min(request.stop);
+            max.max(request.start).max(request.stop);
+        }
+        if (min == null) {
+            return null;
+        }
+        int margin = config.snapshotMargin;
+        min.sub(margin, margin, margin);
+        max.add(margin, margin, margin);
+        if (WorldSnapshot.volume(min, max) > WorldSnapshot.MAX_VOLUME) {
+            logger.debug("Corridor from {} to {} is too large for a snapshot, searching the live world", min, max);
+            return null;
+        }
+        Vector3i corridorMin = min;
+        Vector3i corridorMax = max;
+        return Suppliers.memoize(() -> WorldSnapshot.capture(world, corridorMin, corridorMax));
+    }
+
+    /**
+     * Queues the first of the tasks, which queues the others in turn. If the queue has room, the snapshot is taken
+     * first, on the calling thread, and handed to the tasks that do not bring their own.
+     *
+     * @return false if the tasks were refused
+     */
+    private boolean submit(List<PathfinderTask> chain, Supplier<WorldSnapshot> snapshot) {
+        PathfinderTask task = chain.get(0);
+        PathfinderScheduler scheduler = getScheduler();
+        if (scheduler == null) {
+            logger.debug("Pathfinder system is shut down, refusing request: {}", task.getConfig());
+            rejected.incrementAndGet();
+            completePathFor(task);
+            return false;
+        }
+        if (scheduler.hasRoomFor(task)) {
+            if (snapshot != null) {
+                for (PathfinderTask next : chain) {
+                    if (next.getConfig().snapshot == null) {
+                        next.setSnapshot(snapshot.get());
+                    }
+                }
+            }
+            if (scheduler.offer(task)) {
+                return true;
             }
-            entitiesWithPendingTasks.add(config.requester);
         }
+        logger.debug("Pathfinder queue is full, refusing request: {}", task.getConfig());
+        rejected.incrementAndGet();
+        completePathFor(task);
+        return false;
+    }
 
-        if (config.executor == null) {
-            config.executor = workerTaskMaster.getExecutorService();
+    /**
+     * Drops a queued request to make room for another one.
+     */
+    private void shed(PathfinderTask task) {
+        if (task.cancel(PathStatus.REJECTED) != null) {
+            logger.debug("Pathfinder queue is full, dropping request: {}", task.getConfig());
+            shed.incrementAndGet();
+            task.passOn();
+            completePathFor(task);
         }
+    }
+
+    private static PathResult rejected(JPSConfig config) {
+        return new PathResult(PathStatus.REJECTED, Lists.newArrayList(), config.stop);
+    }
+
+    /**
+     * @return a callback that completes the future
+     */
+    private static PathfinderCallback completing(CompletableFuture<PathResult> future) {
+        return new PathfinderCallback() {
+            @Override
+            public void pathReady(List<Vector3i> path, Vector3i target) {
+                // only the variant with the status is used
+            }
+
+            @Override
+            public void pathReady(PathResult result) {
+                future.complete(result);
+            }
+        };
+    }
+
+    private void cancelWith(CompletableFuture<PathResult> future, PathfinderTask task) {
+        future.whenComplete((result, e) -> {
+            if (future.isCancelled()) {
+                cancel(task.getId());
+            }
+        });
+    }
+
+    /**
+     * Stops a request, so that its worker is free for other requests. A queued request is dropped, and a running
+     * search is interrupted. The callback is only told through {@link PathfinderCallback#pathReady(PathResult)}.
+     *
+     * @return false if the request has already completed, or there is no request with this id
+     */
+    public boolean cancel(int id) {
+        PathfinderTask task = tasks.get(id);
+        return task != null && cancel(task) != null;
+    }
+
+    /**
+     * @return the state the request was cancelled in, or null if it had already completed or been cancelled
+     */
+    private PathfinderTask.State cancel(PathfinderTask task) {
+        PathfinderTask.State cancelledIn = task.cancel();
+        if (cancelledIn == null) {
+            return null;
+        }
+        if (cancelledIn == PathfinderTask.State.RUNNING) {
+            cancelledRunning.incrementAndGet();
+        } else {
+            boolean removed;
+            synchronized (this) {
+                removed = scheduler != null && scheduler.remove(task);
+            }
+            if (removed) {
+                // otherwise a worker has taken it, or it is waiting for its turn in a batch, and will pass it on itself
+                task.passOn();
+            }
+            cancelledQueued.incrementAndGet();
+        }
+        completePathFor(task);
+        return cancelledIn;
+    }
+
+    /**
+     * @return the number of requests refused because the queue was full
+     */
+    public int getRejected() {
+        return rejected.get();
+    }
 
-        PathfinderTask task = new PathfinderTask(world, config, callback);
-        taskMaster.offer(task);
-        return nextId++;
+    /**
+     * @return the number of queued requests dropped to make room for newer or more urgent ones
+     */
+    public int getShed() {
+        return shed.get();
+    }
+
+    /**
+     * @return the number of requests waiting for a worker
+     */
+    public synchronized int getQueueSize() {
+        return scheduler != null ? scheduler.getQueueSize() : 0;
+    }
+
+    /**
+     * @return the number of requests cancelled before a worker started on them, i.e. searches that were saved entirely
+     */
+    public int getCancelledQueued() {
+        return cancelledQueued.get();
+    }
+
+    /**
+     * @return the number of searches interrupted by a cancellation
+     */
+    public int getCancelledRunning() {
+        return cancelledRunning.get();
     }
 
     public int requestPath(Vector3i start, Vector3i target, PathfinderCallback callback) {
         return requestPath(null, target, Lists.newArrayList(start), callback);
     }
 
+    /**
+     * Hands a result to its callback, or queues it for the next update if callbacks are called on the main thread.
+     */
+    void deliver(PathfinderCallback callback, PathResult result) {
+        if (config.callbackDelivery == PathfinderSystemConfig.CallbackDelivery.MAIN_THREAD) {
+            completedRequests.offer(() -> callback.pathReady(result));
+        } else {
+            callback.pathReady(result);
+        }
+    }
+
+    /**
+     * Puts a time-sliced search back into the queue after it yielded.
+     */
+    void requeue(PathfinderTask task) {
+        PathfinderScheduler current = getScheduler();
+        if (current != null) {
+            current.requeue(task);
+            return;
+        }
+        // shut down while the search was waiting for its next slice, or for the one before it in its batch
+        task.cancel();
+        completePathFor(task);
+        task.passOn();
+    }
+
     public void completePathFor(EntityRef requestor) {
         if (requestor == null) {
             return;
@@ -112,6 +516,39 @@ public class PathfinderSystem extends BaseComponentSystem {
         entitiesWithPendingTasks.remove(requestor);
     }
 
+    /**
+     * Forgets a request once it has completed or been cancelled. Leaves a newer request of the same requester alone.
+     */
+    void completePathFor(PathfinderTask task) {
+        tasks.remove(task.getId());
+        EntityRef requester = task.getConfig().requester;
+        if (requester != null) {
+            entitiesWithPendingTasks.remove(requester, task);
+        }
+    }
+
+    private void updatePlayerPositions() {
+        if (entityManager == null) {
+            return;
+        }
+        List<Vector3f> positions = Lists.newArrayList();
+        for (EntityRef client : entityManager.getEntitiesWith(ClientComponent.class)) {
+            LocationComponent location = client.getComponent(ClientComponent.class).character.getComponent(LocationComponent.class);
+            if (location != null) {
+                positions.add(location.getWorldPosition(new Vector3f()));
+            }
+        }
+        playerPositions = Collections.unmodifiableList(positions);
+    }
+
+    private float distanceToNearestPlayer(Vector3ic pos) {
+        float result = Float.POSITIVE_INFINITY;
+        for (Vector3f playerPosition : playerPositions) {
+            result = Math.min(result, playerPosition.distance(pos.x(), pos.y(), pos.z()));
+        }
+        return result;
+    }
+
     @Command
     public void recordPathStats() {
         JPSImpl.setStatsEnabled(true);
@@ -120,6 +557,8 @@ public class PathfinderSystem extends BaseComponentSystem {
     @Command
     public void printPathStats() {
         logger.info(PathMetricsRecorder.getStats());
+        logger.info("Cancelled requests: {} while queued, {} while running", cancelledQueued.get(), cancelledRunning.get());
+        logger.info("Overloaded queue: {} requests refused, {} dropped, {} queued now", rejected.get(), shed.get(), getQueueSize());
     }
 
     @ReceiveEvent
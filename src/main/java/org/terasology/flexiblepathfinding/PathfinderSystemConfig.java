@@ -0,0 +1,75 @@
+// Copyright 2026 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.flexiblepathfinding;
+
+/**
+ * Settings for the threads and the queue of {@link PathfinderSystem}. Pass them to
+ * {@link PathfinderSystem#setConfig(PathfinderSystemConfig)} before the first path is requested.
+ */
+public class PathfinderSystemConfig {
+    public enum ThreadMode {
+        /**
+         * A fixed pool of `workers` platform threads takes requests off the queue.
+         */
+        PLATFORM,
+        /**
+         * Every request runs on its own virtual thread, with at most `workers` of them running at once. Falls back to
+         * {@link #PLATFORM} on JVMs without virtual threads.
+         */
+        VIRTUAL
+    }
+
+    /**
+     * What happens to a new request while the queue is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * The new request is refused.
+         */
+        REJECT,
+        /**
+         * The request that has been waiting longest is dropped to make room.
+         */
+        DROP_OLDEST,
+        /**
+         * The queued request that would be served last is dropped to make room, unless that is the new one.
+         */
+        DROP_LOWEST_PRIORITY
+    }
+
+    /**
+     * Where the callbacks of requests are called.
+     */
+    public enum CallbackDelivery {
+        /**
+         * On the worker thread, right after the search. Callbacks have to be thread safe, and quick.
+         */
+        WORKER,
+        /**
+         * Queued by the worker, and called on the main thread during the next update of {@link PathfinderSystem}.
+         */
+        MAIN_THREAD
+    }
+
+    // number of searches that may run at the same time
+    public int workers = 4;
+    // number of requests that may wait for a worker before new ones are refused
+    public int queueCapacity = 1024;
+    public OverflowPolicy overflowPolicy = OverflowPolicy.REJECT;
+    // a new request from an entity with a request pending replaces it, as if `JPSConfig.supersede` was set, and takes
+    // over its place in the queue if it has not started yet. Otherwise the new request is refused.
+    public boolean coalesceRequests;
+    public ThreadMode threadMode = ThreadMode.PLATFORM;
+    public CallbackDelivery callbackDelivery = CallbackDelivery.WORKER;
+    // take a WorldSnapshot of the corridor between start and goal, widened by snapshotMargin blocks on every side, when
+    // a request is queued, so that the search sees a consistent world. The snapshot is taken on the thread making the
+    // request, which should be the main thread. One snapshot covers a whole batch.
+    public boolean takeSnapshots;
+    public int snapshotMargin = 16;
+
+    @Override
+    public String toString() {
+        return threadMode + " workers: " + workers + " queue capacity: " + queueCapacity + " overflow: " + overflowPolicy
+            + " coalesce: " + coalesceRequests + " callbacks: " + callbackDelivery;
+    }
+}
@@ -10,23 +10,181 @@ import org.terasology.engine.registry.CoreRegistry;
 import org.terasology.engine.utilities.concurrency.Task;
 import org.terasology.engine.world.WorldProvider;
 
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * A queued path request. Tasks are ordered by {@link PathUrgency}, then by their deadline, then by the distance of their
+ * start to the nearest player, and finally in the order they were queued.
+ */
 public class PathfinderTask implements Task, Comparable<PathfinderTask> {
     private JPSConfig config;
-    private Vector3i start;
     private Vector3i stop;
     private PathfinderCallback callback;
-    private WorldProvider world;
+    private PathfinderSystem system;
+    // kept between slices of a time-sliced search
+    private JPSImpl jps;
+    // shared by the searches of a batch, which run one after another
+    private JPSReachabilityCache reachabilityCache;
+    private PathfinderTask next;
+    // taken by the system when the request was queued, unless the config has one
+    private WorldSnapshot snapshot;
     private Logger logger = LoggerFactory.getLogger(PathfinderTask.class);
-    private static int nextPriority = 0;
-    private int priority;
 
+    private static final Comparator<PathfinderTask> ORDER = Comparator
+        .comparing((PathfinderTask task) -> task.urgency)
+        .thenComparingLong(task -> task.deadline)
+        .thenComparingDouble(task -> task.playerDistance)
+        .thenComparingLong(task -> task.sequence);
+    private static final AtomicLong nextSequence = new AtomicLong();
+
+    private PathUrgency urgency;
+    // System.nanoTime() by which the path is wanted
+    private long deadline;
+    private float playerDistance = Float.POSITIVE_INFINITY;
+    private long sequence;
+    // when the task was last queued, and how long it has waited in the queue in total
+    private long queuedAt;
+    private long queueTime;
+
+    enum State {
+        QUEUED, RUNNING, DONE, CANCELLED
+    }
+
+    // id handed out by PathfinderSystem#requestPath
+    private int id = -1;
+    // guarded by this, so that a cancelling thread never interrupts a worker that has moved on to another task
+    private State state = State.QUEUED;
+    private Thread runner;
+
+    public PathfinderTask(JPSConfig config, PathfinderCallback callback) {
+        this(config, callback, null);
+    }
+
+    /**
+     * @deprecated the search reads the world through the plugin of the config, so the world is ignored
+     */
+    @Deprecated
     public PathfinderTask(WorldProvider world, JPSConfig config, PathfinderCallback callback) {
-        this.world = world;
+        this(config, callback, null);
+    }
+
+    public PathfinderTask(JPSConfig config, PathfinderCallback callback, PathfinderSystem system) {
         this.config = config;
         this.callback = callback;
-        this.priority = nextPriority++;
+        this.system = system;
+        this.sequence = nextSequence.getAndIncrement();
+        this.urgency = config != null ? config.urgency : PathUrgency.IDLE;
+        this.stop = config != null ? config.stop : null;
+        this.deadline = Long.MAX_VALUE;
+        if (config != null && config.deadline < Float.POSITIVE_INFINITY) {
+            this.deadline = System.nanoTime() + (long) (config.deadline * 1e9);
+        }
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    void setId(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Lets the search reuse the answers of earlier searches with an equal plugin. No other search may use the cache at
+     * the same time.
+     */
+    void setReachabilityCache(JPSReachabilityCache reachabilityCache) {
+        this.reachabilityCache = reachabilityCache;
+    }
+
+    void setSnapshot(WorldSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * @param next the task to queue once this one has completed or been cancelled
+     */
+    void setNext(PathfinderTask next) {
+        this.next = next;
+    }
+
+    /**
+     * Queues the next task of the batch, if any.
+     */
+    void passOn() {
+        if (next != null) {
+            system.requeue(next);
+        }
+    }
+
+    public JPSConfig getConfig() {
+        return config;
+    }
+
+    public PathUrgency getUrgency() {
+        return urgency;
+    }
+
+    /**
+     * @param playerDistance the distance from the start of the path to the nearest player
+     */
+    public void setPlayerDistance(float playerDistance) {
+        this.playerDistance = playerDistance;
+    }
+
+    /**
+     * Called by the {@link PathfinderScheduler} whenever the task is put into the queue.
+     */
+    void onQueued() {
+        queuedAt = System.nanoTime();
+    }
+
+    /**
+     * Lets this task take over the place in the queue of a request it replaces, so that an entity changing its goal
+     * does not have to wait for its turn again.
+     */
+    void takePlaceOf(PathfinderTask replaced) {
+        sequence = replaced.sequence;
+    }
+
+    long getQueuedAt() {
+        return queuedAt;
+    }
+
+    /**
+     * Stops the request. A queued request is dropped without running, a running one is interrupted at its next limit
+     * check. Either way the callback only hears about it through {@link PathfinderCallback#pathReady(PathResult)}.
+     *
+     * @return the state the request was cancelled in, or null if it had already completed or been cancelled
+     */
+    State cancel() {
+        return cancel(PathStatus.CANCELLED);
+    }
+
+    /**
+     * Like {@link #cancel()}, but reports the given status to the callback.
+     */
+    State cancel(PathStatus status) {
+        State previous;
+        synchronized (this) {
+            previous = state;
+            if (previous == State.DONE || previous == State.CANCELLED) {
+                return null;
+            }
+            state = State.CANCELLED;
+            if (previous == State.RUNNING) {
+                runner.interrupt();
+            } else if (jps != null) {
+                // a time-sliced search that is waiting for its next slice
+                jps.abort();
+            }
+        }
+        if (callback != null) {
+            system.deliver(callback, new PathResult(status, Lists.newArrayList(), stop));
+        }
+        return previous;
     }
 
     @Override
@@ -36,17 +194,65 @@ public class PathfinderTask implements Task, Comparable<PathfinderTask> {
 
     @Override
     public void run() {
-        JPSImpl jps = new JPSImpl(config);
+        if (system == null) {
+            system = CoreRegistry.get(PathfinderSystem.class);
+        }
+        synchronized (this) {
+            if (state != State.QUEUED) {
+                // cancelled after a worker took it off the queue
+                passOn();
+                return;
+            }
+            state = State.RUNNING;
+            runner = Thread.currentThread();
+        }
+        if (jps == null) {
+            jps = new JPSImpl(config);
+            jps.setReachabilityCache(reachabilityCache);
+            jps.setSnapshot(snapshot);
+        }
+        queueTime += System.nanoTime() - queuedAt;
+        jps.setQueueTime(queueTime);
+
         List<Vector3i> path = Lists.newArrayList();
+        PathStatus status = null;
         try {
-            if(jps.run()) {
+            int expansions = config.expansionsPerSlice > 0 ? config.expansionsPerSlice : Integer.MAX_VALUE;
+            status = jps.resume(expansions);
+            if (status == PathStatus.FOUND || status == PathStatus.PARTIAL) {
                 path = jps.getPath();
             }
         } catch (InterruptedException e) {
-            // do nothing
+            status = PathStatus.CANCELLED;
+        } catch (RuntimeException e) {
+            // a failing plugin must not take the worker down with it, so report it as if there was no path
+            logger.warn("Search failed: {}", e.toString());
+            status = PathStatus.UNREACHABLE;
+        }
+
+        synchronized (this) {
+            runner = null;
+            if (state == State.CANCELLED) {
+                // clear an interrupt that arrived after the search stopped checking for it
+                Thread.interrupted();
+                jps.abort();
+                passOn();
+                return;
+            }
+            state = status == null ? State.QUEUED : State.DONE;
+        }
+        if (status == null) {
+            // go behind the other requests of the same urgency, so that they get a turn before this one continues
+            sequence = nextSequence.getAndIncrement();
+            system.requeue(this);
+            return;
+        }
+        system.completePathFor(this);
+        passOn();
+        if (callback != null) {
+            WorldSnapshot searched = jps.getSnapshot();
+            system.deliver(callback, new PathResult(status, path, stop, searched != null ? searched.getId() : -1));
         }
-        CoreRegistry.get(PathfinderSystem.class).completePathFor(config.requester);
-        callback.pathReady(path, this.stop);
     }
 
     @Override
@@ -56,9 +262,6 @@ public class PathfinderTask implements Task, Comparable<PathfinderTask> {
 
     @Override
     public int compareTo(PathfinderTask o) {
-        if(this.priority < o.priority) {
-            return -1;
-        }
-        return 1;
+        return ORDER.compare(this, o);
     }
 }
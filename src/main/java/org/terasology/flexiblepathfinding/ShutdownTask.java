@@ -2,11 +2,9 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.terasology.flexiblepathfinding;
 
-import org.terasology.engine.world.WorldProvider;
-
 public class ShutdownTask extends PathfinderTask {
-    public ShutdownTask(WorldProvider world, JPSConfig config, PathfinderCallback callback) {
-        super(world, config, callback);
+    public ShutdownTask() {
+        super(null, null);
     }
 
     @Override
@@ -0,0 +1,199 @@
+// Copyright 2026 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.flexiblepathfinding;
+
+import org.joml.Vector3ic;
+import org.terasology.engine.world.WorldProvider;
+import org.terasology.engine.world.block.Block;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An immutable copy of what plugins need to know about the blocks in a box of the world, one byte of flags per block.
+ * <p>
+ * Searches that read a snapshot instead of the {@link WorldProvider} see the world as it was when the snapshot was
+ * taken, however it changes while they run, and look blocks up by plain array indexing rather than by chunk. A
+ * snapshot is safe to share between threads.
+ * <p>
+ * Whether a whole box of blocks has a flag is answered by looking at each of its blocks if the box is small, and
+ * through {@link ClearanceMap}s otherwise. Those are built on first use for each flag and box height, so checks for
+ * large agents cost the same as for small ones.
+ */
+public final class WorldSnapshot {
+    public static final byte PENETRABLE = 1;
+    public static final byte LIQUID = 2;
+    /**
+     * Solid blocks support whatever stands on them.
+     */
+    public static final byte SOLID = 4;
+    public static final byte WATER = 8;
+
+    /**
+     * Largest number of blocks a snapshot may hold, i.e. 4 MiB of flags.
+     */
+    public static final long MAX_VOLUME = 1 << 22;
+
+    /**
+     * Largest box that is checked block by block, which is cheaper than building a clearance map for the whole
+     * snapshot, e.g. for the 1x2 boxes of humanoids.
+     */
+    static final int MAX_SCANNED_VOLUME = 64;
+
+    private static final AtomicLong nextId = new AtomicLong();
+
+    private final long id;
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int sizeX;
+    private final int sizeY;
+    private final int sizeZ;
+    // indexed by ((y * sizeZ) + z) * sizeX + x, relative to the minimum
+    private final byte[] flags;
+    // by flag and height
+    private final Map<Integer, ClearanceMap> clearanceMaps = new ConcurrentHashMap<>();
+
+    private WorldSnapshot(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ) {
+        this.id = nextId.getAndIncrement();
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.flags = new byte[sizeX * sizeY * sizeZ];
+    }
+
+    /**
+     * Copies the blocks from min to max (both inclusive). Should be called on the main thread, so that the copy is
+     * consistent.
+     *
+     * @throws IllegalArgumentException if the box holds more than {@link #MAX_VOLUME} blocks
+     */
+    public static WorldSnapshot capture(WorldProvider world, Vector3ic min, Vector3ic max) {
+        long volume = volume(min, max);
+        if (volume <= 0 || volume > MAX_VOLUME) {
+            throw new IllegalArgumentException("Cannot take a snapshot of " + volume + " blocks");
+        }
+
+        WorldSnapshot snapshot = new WorldSnapshot(min.x(), min.y(), min.z(),
+                max.x() - min.x() + 1, max.y() - min.y() + 1, max.z() - min.z() + 1);
+        int index = 0;
+        for (int y = 0; y < snapshot.sizeY; y++) {
+            for (int z = 0; z < snapshot.sizeZ; z++) {
+                for (int x = 0; x < snapshot.sizeX; x++) {
+                    Block block = world.getBlock(snapshot.minX + x, snapshot.minY + y, snapshot.minZ + z);
+                    snapshot.flags[index++] = BlockFlagTable.get(block);
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return the number of blocks from min to max (both inclusive)
+     */
+    public static long volume(Vector3ic min, Vector3ic max) {
+        return (long) (max.x() - min.x() + 1) * (max.y() - min.y() + 1) * (max.z() - min.z() + 1);
+    }
+
+    /**
+     * @return a number identifying this snapshot, increasing with the time it was taken
+     */
+    public long getId() {
+        return id;
+    }
+
+    public boolean contains(int x, int y, int z) {
+        return x >= minX && x - minX < sizeX && y >= minY && y - minY < sizeY && z >= minZ && z - minZ < sizeZ;
+    }
+
+    /**
+     * @return the flags of the block, which must be {@link #contains contained} in the snapshot
+     */
+    public byte getFlags(int x, int y, int z) {
+        return flags[((y - minY) * sizeZ + (z - minZ)) * sizeX + (x - minX)];
+    }
+
+    public boolean isPenetrable(int x, int y, int z) {
+        return (getFlags(x, y, z) & PENETRABLE) != 0;
+    }
+
+    public boolean isLiquid(int x, int y, int z) {
+        return (getFlags(x, y, z) & LIQUID) != 0;
+    }
+
+    /**
+     * @return true if every block in the box from min to max (both inclusive) has the flag. The box must be
+     * {@link #contains contained} in the snapshot.
+     */
+    public boolean allHave(byte flag, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        int lengthX = maxX - minX + 1;
+        int lengthZ = maxZ - minZ + 1;
+        int height = maxY - minY + 1;
+        int side = Math.min(lengthX, lengthZ);
+        if (lengthX * lengthZ * height <= MAX_SCANNED_VOLUME
+                || side > ClearanceMap.MAX_CLEARANCE || height > ClearanceMap.MAX_CLEARANCE) {
+            return allHaveByScan(flag, minX, minY, minZ, maxX, maxY, maxZ);
+        }
+
+        // cover the footprint with squares of its shorter side, the last one in each direction flush with the end
+        ClearanceMap clearance = getClearance(flag, height);
+        for (int x = 0; x < lengthX; x += side) {
+            int squareX = minX - this.minX + Math.min(x, lengthX - side);
+            for (int z = 0; z < lengthZ; z += side) {
+                int squareZ = minZ - this.minZ + Math.min(z, lengthZ - side);
+                if (clearance.get(squareX, minY - this.minY, squareZ) < side) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the clearance map for boxes of the given height whose blocks all have the flag
+     */
+    public ClearanceMap getClearance(byte flag, int height) {
+        int key = flag << 16 | height;
+        ClearanceMap clearance = clearanceMaps.get(key);
+        if (clearance == null) {
+            // built outside of the map, so that searches needing other maps are not blocked meanwhile. Searches racing
+            // for the same one may build it twice, but all of them use the first.
+            clearance = new ClearanceMap(flags, sizeX, sizeY, sizeZ, flag, height);
+            ClearanceMap built = clearanceMaps.putIfAbsent(key, clearance);
+            if (built != null) {
+                clearance = built;
+            }
+        }
+        return clearance;
+    }
+
+    /**
+     * @return the number of clearance maps built so far
+     */
+    int getClearanceMapCount() {
+        return clearanceMaps.size();
+    }
+
+    private boolean allHaveByScan(byte flag, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        for (int y = minY; y <= maxY; y++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int x = minX; x <= maxX; x++) {
+                    if ((getFlags(x, y, z) & flag) == 0) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "snapshot " + id + " of " + sizeX + "x" + sizeY + "x" + sizeZ + " blocks at (" + minX + ", " + minY + ", "
+                + minZ + ")";
+    }
+}
@@ -2,11 +2,24 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.terasology.flexiblepathfinding.metrics;
 
+import org.terasology.flexiblepathfinding.PathStatus;
+import org.terasology.flexiblepathfinding.PathUrgency;
+
 public class PathMetric {
+    // milliseconds
     public double time;
     public double cost;
     public double size;
     public double maxDepth;
+    // cells scanned by jumps, and jump points taken off the open list
     public double nodesExplored;
+    public double nodesExpanded;
+    // jump points created by the search, and the bytes of node storage held per jump point
+    public double nodes;
+    public double memoryPerNode;
     public boolean success;
+    public PathStatus status;
+    // milliseconds the request spent in the PathfinderSystem queue, if it went through one
+    public double queueTime;
+    public PathUrgency urgency;
 }
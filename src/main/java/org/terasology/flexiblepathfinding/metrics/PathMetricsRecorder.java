@@ -3,8 +3,11 @@
 package org.terasology.flexiblepathfinding.metrics;
 
 import com.google.common.collect.Queues;
+import org.terasology.flexiblepathfinding.PathStatus;
+import org.terasology.flexiblepathfinding.PathUrgency;
 
 import java.util.Collection;
+import java.util.DoubleSummaryStatistics;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.stream.Collectors;
 
@@ -39,7 +42,20 @@ public class PathMetricsRecorder {
         size.build(stats, pathMetric -> pathMetric.size);
         cost.build(stats, pathMetric -> pathMetric.cost);
 
-        result = String.format("total: %d\nsuccess: %d\nfail: %d\n", stats.size(), successes.size(), failures.size());
+        long budgetExhausted = failures.stream().filter(stat -> stat.status == PathStatus.BUDGET_EXHAUSTED).count();
+        long timedOut = failures.stream().filter(stat -> stat.status == PathStatus.TIMEOUT).count();
+        long cancelled = failures.stream().filter(stat -> stat.status == PathStatus.CANCELLED).count();
+        double memoryPerNode = stats.stream().mapToDouble(stat -> stat.memoryPerNode).average().orElse(0);
+
+        result = String.format("total: %d\nsuccess: %d\nfail: %d\nbudget exhausted: %d\ntimed out: %d\ncancelled: %d\nbytes per node: %.1f\n",
+                stats.size(), successes.size(), failures.size(), budgetExhausted, timedOut, cancelled, memoryPerNode);
+        for (PathUrgency urgency : PathUrgency.values()) {
+            DoubleSummaryStatistics queueTime = stats.stream().filter(stat -> stat.urgency == urgency)
+                    .mapToDouble(stat -> stat.queueTime).summaryStatistics();
+            if (queueTime.getCount() > 0) {
+                result += String.format("queue time %s: avg %.1fms max %.1fms\n", urgency, queueTime.getAverage(), queueTime.getMax());
+            }
+        }
         return result + successTime.toString() + failTime.toString() + size.toString() + cost.toString();
     }
 }
@@ -4,8 +4,45 @@ package org.terasology.flexiblepathfinding.plugins;
 
 
 import org.joml.Vector3ic;
+import org.terasology.flexiblepathfinding.JPSDirection;
+import org.terasology.flexiblepathfinding.WorldSnapshot;
 
+/**
+ * Decides how a subject may move through the world. Plugins that always give the same answers should be equal, so that
+ * the searches of a batch can share them (see PathfinderSystem#requestPaths).
+ */
 public interface JPSPlugin {
+    /**
+     * Returned by {@link #reachableMask} of plugins that answer moves one at a time.
+     */
+    int NO_MASK = -1;
+
     boolean inSight(Vector3ic start, Vector3ic goal);
     boolean isReachable(Vector3ic to, Vector3ic from);
+
+    /**
+     * @return the cost of a move between {@link #isReachable reachable} neighbours, as a factor of its length. Values
+     * below 1 count as 1, so that the distance to the goal never overestimates the remaining cost. Only used by
+     * searches with JPSConfig#useTraversalCosts.
+     */
+    default float traversalCost(Vector3ic to, Vector3ic from) {
+        return 1;
+    }
+
+    /**
+     * @return a mask of the {@link JPSDirection#bit() directions} in which the neighbours of the position are
+     * {@link #isReachable reachable} from it, or {@link #NO_MASK} if each move has to be asked about separately.
+     * Plugins that read blocks can answer all 26 moves from a single read of the surrounding blocks.
+     */
+    default int reachableMask(Vector3ic from) {
+        return NO_MASK;
+    }
+
+    /**
+     * @return a plugin that gives the same answers, but reads blocks from the snapshot where it covers them. Plugins
+     * that do not read blocks can return themselves.
+     */
+    default JPSPlugin withSnapshot(WorldSnapshot snapshot) {
+        return this;
+    }
 }
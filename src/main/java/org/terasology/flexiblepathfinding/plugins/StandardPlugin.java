@@ -2,21 +2,50 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.terasology.flexiblepathfinding.plugins;
 
+import org.joml.Vector3i;
 import org.joml.Vector3ic;
 import org.terasology.engine.world.WorldProvider;
 import org.terasology.engine.world.block.BlockRegion;
+import org.terasology.flexiblepathfinding.BlockFlagTable;
+import org.terasology.flexiblepathfinding.JPSDirection;
+import org.terasology.flexiblepathfinding.JPSForcedNeighbors;
 import org.terasology.flexiblepathfinding.LineOfSight3d;
+import org.terasology.flexiblepathfinding.WorldSnapshot;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Base class of the plugins that move a box shaped body through the blocks of the world.
+ * <p>
+ * Moves are decided through {@link #getFlags}, {@link #isMovementClear} and {@link #isSupported}. When asked for the
+ * {@link #reachableMask} of a position that the snapshot does not cover, the blocks around it are read once into a
+ * buffer of the current thread, and all 26 moves are decided from that buffer, for one plugin or several at once. The
+ * buffer also keeps the copies of the plugins that read from it, so asking for a mask allocates nothing once a thread
+ * has asked a plugin before.
+ */
+public abstract class StandardPlugin implements JPSPlugin, Cloneable {
+    private static final ThreadLocal<Neighbourhood> neighbourhoods = ThreadLocal.withInitial(Neighbourhood::new);
 
-public abstract class StandardPlugin implements JPSPlugin {
     public final WorldProvider world;
 
     private float width;
     private float height;
+    // cost factor of moves into positions where the body is partly in liquid
+    private float liquidCost = 1;
+    // read instead of the world where it covers the block
+    private WorldSnapshot snapshot;
+    private final BlockRegion occupied;
+    private final BlockRegion supporting;
+    // only set on the copies that reachableMask decides moves with
+    private Neighbourhood neighbourhood;
 
     public StandardPlugin(WorldProvider world, float width, float height) {
         this.world = world;
         this.width = width;
         this.height = height;
+        this.occupied = getOccupiedRegionRelative();
+        this.supporting = getSupportingRegionRelative();
     }
 
     @Override
@@ -24,6 +53,228 @@ public abstract class StandardPlugin implements JPSPlugin {
         return new LineOfSight3d(world).inSight(start, stop);
     }
 
+    /**
+     * @return a copy of this plugin bound to the snapshot. Subclasses with mutable state of their own need to copy it.
+     */
+    @Override
+    public StandardPlugin withSnapshot(WorldSnapshot newSnapshot) {
+        StandardPlugin copy = copy();
+        copy.snapshot = newSnapshot;
+        return copy;
+    }
+
+    private StandardPlugin copy() {
+        try {
+            return (StandardPlugin) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public int reachableMask(Vector3ic from) {
+        StandardPlugin[] single = neighbourhoods.get().single;
+        single[0] = this;
+        try {
+            return reachableMask(from, single, null);
+        } finally {
+            single[0] = null;
+        }
+    }
+
+    /**
+     * Drops the copies of plugins that the current thread keeps for {@link #reachableMask}, so that the plugins, their
+     * worlds and snapshots can be collected once a search is done with them. The block buffer itself is kept.
+     */
+    public static void release() {
+        neighbourhoods.get().release();
+    }
+
+    /**
+     * @return true if {@link #reachableMask(Vector3ic)} decides the moves from the blocks around the position, so that
+     * it can be decided together with other plugins by {@link #reachableMask(Vector3ic, StandardPlugin[], int[])}.
+     * Subclasses that answer masks differently need to return false.
+     */
+    public boolean usesNeighbourhoodMask() {
+        return true;
+    }
+
+    /**
+     * @return the mask of the moves from the position that any of the plugins allows. The blocks around the position
+     * are read once for all of them, so they need to read the same world and snapshot. The plugins are asked in order,
+     * each only about the moves that none before it allowed.
+     *
+     * @param allowed if not null, counts for each plugin the moves it was the first to allow
+     */
+    public static int reachableMask(Vector3ic from, StandardPlugin[] plugins, int[] allowed) {
+        // every block a move to a neighbour passes through or stands on
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        int maxZ = Integer.MIN_VALUE;
+        for (StandardPlugin plugin : plugins) {
+            minX = Math.min(minX, from.x() - 1 + plugin.occupied.minX());
+            minY = Math.min(minY, from.y() - 1 + Math.min(plugin.occupied.minY(), plugin.supporting.minY()));
+            minZ = Math.min(minZ, from.z() - 1 + plugin.occupied.minZ());
+            maxX = Math.max(maxX, from.x() + 1 + plugin.occupied.maxX());
+            maxY = Math.max(maxY, from.y() + 1 + plugin.occupied.maxY());
+            maxZ = Math.max(maxZ, from.z() + 1 + plugin.occupied.maxZ());
+        }
+
+        Neighbourhood local = neighbourhoods.get();
+        WorldSnapshot snapshot = plugins[0].snapshot;
+        boolean buffered = snapshot == null || !snapshot.contains(minX, minY, minZ)
+                || !snapshot.contains(maxX, maxY, maxZ);
+        if (buffered) {
+            local.load(plugins[0], minX, minY, minZ, maxX, maxY, maxZ);
+        }
+
+        Vector3i to = local.to;
+        int result = 0;
+        for (int i = 0; i < plugins.length && result != JPSForcedNeighbors.ALL_DIRECTIONS; i++) {
+            StandardPlugin view = buffered ? local.viewOf(plugins[i]) : plugins[i];
+            for (JPSDirection dir : JPSDirection.directions()) {
+                if ((result & dir.bit()) == 0
+                        && view.isReachable(to.set(from).add(dir.getX(), dir.getY(), dir.getZ()), from)) {
+                    result |= dir.bit();
+                    if (allowed != null) {
+                        allowed[i]++;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    public WorldSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public float getLiquidCost() {
+        return liquidCost;
+    }
+
+    /**
+     * Makes moves that end with any part of the body in liquid cost the given factor of their length, so that searches
+     * with JPSConfig#useTraversalCosts prefer to stay dry where that is not much longer.
+     */
+    public void setLiquidCost(float liquidCost) {
+        this.liquidCost = liquidCost;
+    }
+
+    @Override
+    public float traversalCost(Vector3ic to, Vector3ic from) {
+        if (liquidCost == 1) {
+            return 1;
+        }
+        Vector3i pos = neighbourhoods.get().cost;
+        for (int y = to.y() + occupied.minY(); y <= to.y() + occupied.maxY(); y++) {
+            for (int z = to.z() + occupied.minZ(); z <= to.z() + occupied.maxZ(); z++) {
+                for (int x = to.x() + occupied.minX(); x <= to.x() + occupied.maxX(); x++) {
+                    if ((getFlags(pos.set(x, y, z)) & WorldSnapshot.LIQUID) != 0) {
+                        return liquidCost;
+                    }
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * @return the {@link WorldSnapshot} flags of the block, from the snapshot if it covers the block
+     */
+    protected byte getFlags(Vector3ic pos) {
+        if (neighbourhood != null && neighbourhood.contains(pos.x(), pos.y(), pos.z())) {
+            return neighbourhood.get(pos.x(), pos.y(), pos.z());
+        }
+        if (snapshot != null && snapshot.contains(pos.x(), pos.y(), pos.z())) {
+            return snapshot.getFlags(pos.x(), pos.y(), pos.z());
+        }
+        return BlockFlagTable.get(world.getBlock(pos));
+    }
+
+    protected boolean isPenetrable(Vector3ic pos) {
+        return (getFlags(pos) & WorldSnapshot.PENETRABLE) != 0;
+    }
+
+    protected boolean isLiquid(Vector3ic pos) {
+        return (getFlags(pos) & WorldSnapshot.LIQUID) != 0;
+    }
+
+    /**
+     * @return true if every block the body passes through moving between the two positions has the flag, one of the
+     * flags of {@link WorldSnapshot}
+     */
+    protected boolean isMovementClear(Vector3ic to, Vector3ic from, byte flag) {
+        return allHave(flag,
+                Math.min(to.x(), from.x()) + occupied.minX(),
+                Math.min(to.y(), from.y()) + occupied.minY(),
+                Math.min(to.z(), from.z()) + occupied.minZ(),
+                Math.max(to.x(), from.x()) + occupied.maxX(),
+                Math.max(to.y(), from.y()) + occupied.maxY(),
+                Math.max(to.z(), from.z()) + occupied.maxZ());
+    }
+
+    /**
+     * @return true if any block immediately under the body at the position is solid
+     */
+    protected boolean isSupported(Vector3ic pos) {
+        return !allHave(WorldSnapshot.PENETRABLE,
+                pos.x() + supporting.minX(), pos.y() + supporting.minY(), pos.z() + supporting.minZ(),
+                pos.x() + supporting.maxX(), pos.y() + supporting.maxY(), pos.z() + supporting.maxZ());
+    }
+
+    /**
+     * @return true if every block in the box from min to max (both inclusive) has the flag. Answered by the clearance
+     * maps of the snapshot if it covers the box, and block by block otherwise.
+     */
+    protected boolean allHave(byte flag, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        if (neighbourhood != null && neighbourhood.contains(minX, minY, minZ)
+                && neighbourhood.contains(maxX, maxY, maxZ)) {
+            return neighbourhood.allHave(flag, minX, minY, minZ, maxX, maxY, maxZ);
+        }
+        if (neighbourhood == null && snapshot != null
+                && snapshot.contains(minX, minY, minZ) && snapshot.contains(maxX, maxY, maxZ)) {
+            return snapshot.allHave(flag, minX, minY, minZ, maxX, maxY, maxZ);
+        }
+
+        Vector3i pos = new Vector3i();
+        for (int y = minY; y <= maxY; y++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int x = minX; x <= maxX; x++) {
+                    if ((getFlags(pos.set(x, y, z)) & flag) == 0) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Plugins of the same class for the same world, body size and liquid cost give the same answers. Subclasses with
+     * settings of their own need to include them.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        StandardPlugin other = (StandardPlugin) o;
+        return world == other.world && width == other.width && height == other.height
+                && liquidCost == other.liquidCost;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getClass(), System.identityHashCode(world), width, height, liquidCost);
+    }
+
     /**
      * Get the region occupied by the subject based on padding when located at position
      * @return
@@ -59,4 +310,101 @@ public abstract class StandardPlugin implements JPSPlugin {
         int y1 = (int) Math.floor(0.5f + yOffset - halfHeight) - 1;
         return new BlockRegion(x1, y1, x1, x2, y1, x2);
     }
+
+    /**
+     * The flags of the blocks around a position, reused for every position a thread asks about, along with the copies
+     * of the plugins that read them and the other scratch space of {@link #reachableMask} and {@link #traversalCost}.
+     */
+    private static final class Neighbourhood {
+        // enough for the plugins of a composite
+        private static final int VIEWS = 8;
+
+        private final StandardPlugin[] single = new StandardPlugin[1];
+        private final Vector3i to = new Vector3i();
+        private final Vector3i pos = new Vector3i();
+        private final Vector3i cost = new Vector3i();
+        // copies of the plugins by identity, replaced round robin
+        private final StandardPlugin[] sources = new StandardPlugin[VIEWS];
+        private final StandardPlugin[] views = new StandardPlugin[VIEWS];
+        private int nextView;
+
+        private int minX;
+        private int minY;
+        private int minZ;
+        private int sizeX;
+        private int sizeY;
+        private int sizeZ;
+        private byte[] flags = new byte[0];
+
+        private void load(StandardPlugin plugin, int newMinX, int newMinY, int newMinZ, int maxX, int maxY, int maxZ) {
+            minX = newMinX;
+            minY = newMinY;
+            minZ = newMinZ;
+            sizeX = maxX - minX + 1;
+            sizeY = maxY - minY + 1;
+            sizeZ = maxZ - minZ + 1;
+            if (flags.length < sizeX * sizeY * sizeZ) {
+                flags = new byte[sizeX * sizeY * sizeZ];
+            }
+
+            int index = 0;
+            for (int y = minY; y <= maxY; y++) {
+                for (int z = minZ; z <= maxZ; z++) {
+                    for (int x = minX; x <= maxX; x++) {
+                        flags[index++] = plugin.getFlags(pos.set(x, y, z));
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return a copy of the plugin that reads the blocks from this buffer, made the first time it is asked for and
+         * brought up to date with the plugin afterwards
+         */
+        private StandardPlugin viewOf(StandardPlugin plugin) {
+            for (int i = 0; i < VIEWS; i++) {
+                if (sources[i] == plugin) {
+                    StandardPlugin view = views[i];
+                    view.liquidCost = plugin.liquidCost;
+                    view.snapshot = plugin.snapshot;
+                    return view;
+                }
+            }
+            StandardPlugin view = plugin.copy();
+            view.neighbourhood = this;
+            sources[nextView] = plugin;
+            views[nextView] = view;
+            nextView = (nextView + 1) % VIEWS;
+            return view;
+        }
+
+        private void release() {
+            Arrays.fill(sources, null);
+            Arrays.fill(views, null);
+            nextView = 0;
+        }
+
+        private boolean contains(int x, int y, int z) {
+            return x >= minX && x - minX < sizeX && y >= minY && y - minY < sizeY && z >= minZ && z - minZ < sizeZ;
+        }
+
+        private boolean allHave(byte flag, int boxMinX, int boxMinY, int boxMinZ, int boxMaxX, int boxMaxY,
+                                int boxMaxZ) {
+            for (int y = boxMinY; y <= boxMaxY; y++) {
+                for (int z = boxMinZ; z <= boxMaxZ; z++) {
+                    int row = ((y - minY) * sizeZ + (z - minZ)) * sizeX - minX;
+                    for (int x = boxMinX; x <= boxMaxX; x++) {
+                        if ((flags[row + x] & flag) == 0) {
+                            return false;
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+
+        private byte get(int x, int y, int z) {
+            return flags[((y - minY) * sizeZ + (z - minZ)) * sizeX + (x - minX)];
+        }
+    }
 }
@@ -3,41 +3,225 @@
 package org.terasology.flexiblepathfinding.plugins.basic;
 
 import com.google.common.collect.Lists;
+import org.joml.Vector3i;
 import org.joml.Vector3ic;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.terasology.flexiblepathfinding.JPSDirection;
+import org.terasology.flexiblepathfinding.JPSForcedNeighbors;
+import org.terasology.flexiblepathfinding.WorldSnapshot;
 import org.terasology.flexiblepathfinding.plugins.JPSPlugin;
+import org.terasology.flexiblepathfinding.plugins.StandardPlugin;
 
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
+/**
+ * Allows every move that any of its plugins allows, e.g. walking or leaping.
+ * <p>
+ * The plugins are asked in the order of how often they allowed a move recently, so that the one that decides most
+ * moves is usually the only one asked. If all of them are {@link StandardPlugin}s reading the same world and snapshot,
+ * the blocks around a position are read once for all of them (see {@link StandardPlugin#reachableMask(Vector3ic,
+ * StandardPlugin[], int[])}). The counts are not synchronized, so under concurrent use they are only approximate,
+ * which is all the ordering needs.
+ */
 public class CompositePlugin implements JPSPlugin {
+    // how many moves are decided between two reorderings, which also halve the counts so that they follow the terrain
+    private static final int REORDER_INTERVAL = 4096;
+    // the neighbour reachableMask asks plugins about when they have no mask of their own
+    private static final ThreadLocal<Vector3i> neighbours = ThreadLocal.withInitial(Vector3i::new);
+
     public CompositePlugin(JPSPlugin ... plugins) {
         this.plugins = Lists.newArrayList(plugins);
     }
 
     private static final Logger logger = LoggerFactory.getLogger(CompositePlugin.class);
     private List<JPSPlugin> plugins = Lists.newArrayList();
+    private volatile Ordering ordering = new Ordering(new JPSPlugin[0], new int[0]);
+    private int decisions;
 
     public void addPlugin(JPSPlugin plugin) {
         plugins.add(plugin);
     }
 
+    /**
+     * @return the plugins in the order they were added
+     */
     public List<JPSPlugin> getPlugins() {
         return plugins;
     }
 
+    /**
+     * A straight line is only a path if some plugin allows each of its steps, so it is followed block by block rather
+     * than just checked for obstacles.
+     */
     @Override
     public boolean inSight(Vector3ic start, Vector3ic goal) {
-        return false;
+        int dx = goal.x() - start.x();
+        int dy = goal.y() - start.y();
+        int dz = goal.z() - start.z();
+        int steps = Math.max(Math.abs(dx), Math.max(Math.abs(dy), Math.abs(dz)));
+
+        Vector3i from = new Vector3i(start);
+        Vector3i to = new Vector3i();
+        for (int i = 1; i <= steps; i++) {
+            double t = (double) i / steps;
+            to.set(start.x() + (int) Math.round(dx * t), start.y() + (int) Math.round(dy * t),
+                    start.z() + (int) Math.round(dz * t));
+            if (!isReachable(to, from)) {
+                return false;
+            }
+            from.set(to);
+        }
+        return true;
     }
 
     @Override
     public boolean isReachable(Vector3ic a, Vector3ic b) {
-        for (JPSPlugin plugin : plugins) {
-            if (plugin.isReachable(a, b)) {
+        Ordering current = getOrdering();
+        countDecision();
+        for (int i = 0; i < current.plugins.length; i++) {
+            if (current.plugins[i].isReachable(a, b)) {
+                current.allowed[i]++;
                 return true;
             }
         }
         return false;
     }
+
+    @Override
+    public int reachableMask(Vector3ic from) {
+        Ordering current = getOrdering();
+        countDecision();
+        if (current.fused != null) {
+            return StandardPlugin.reachableMask(from, current.fused, current.allowed);
+        }
+
+        Vector3i to = neighbours.get();
+        int result = 0;
+        for (int i = 0; i < current.plugins.length && result != JPSForcedNeighbors.ALL_DIRECTIONS; i++) {
+            JPSPlugin plugin = current.plugins[i];
+            int mask = plugin.reachableMask(from);
+            if (mask == NO_MASK) {
+                mask = 0;
+                for (JPSDirection dir : JPSDirection.directions()) {
+                    if ((result & dir.bit()) == 0
+                            && plugin.isReachable(to.set(from).add(dir.getX(), dir.getY(), dir.getZ()), from)) {
+                        mask |= dir.bit();
+                    }
+                }
+            }
+            current.allowed[i] += Integer.bitCount(mask & ~result);
+            result |= mask;
+        }
+        return result;
+    }
+
+    /**
+     * @return the cost of the cheapest movement mode that allows the move
+     */
+    @Override
+    public float traversalCost(Vector3ic to, Vector3ic from) {
+        float result = Float.POSITIVE_INFINITY;
+        for (JPSPlugin plugin : plugins) {
+            if (plugin.isReachable(to, from)) {
+                result = Math.min(result, plugin.traversalCost(to, from));
+            }
+        }
+        return result == Float.POSITIVE_INFINITY ? 1 : result;
+    }
+
+    @Override
+    public JPSPlugin withSnapshot(WorldSnapshot snapshot) {
+        CompositePlugin result = new CompositePlugin();
+        for (JPSPlugin plugin : plugins) {
+            result.addPlugin(plugin.withSnapshot(snapshot));
+        }
+        return result;
+    }
+
+    private Ordering getOrdering() {
+        Ordering current = ordering;
+        if (current.plugins.length != plugins.size()) {
+            current = new Ordering(plugins.toArray(new JPSPlugin[0]), new int[plugins.size()]);
+            ordering = current;
+        }
+        return current;
+    }
+
+    private void countDecision() {
+        if (++decisions % REORDER_INTERVAL == 0) {
+            reorder();
+        }
+    }
+
+    /**
+     * Sorts the plugins by the number of moves they allowed first, most first.
+     */
+    private void reorder() {
+        Ordering current = ordering;
+        Integer[] indices = new Integer[current.plugins.length];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
+        }
+        Arrays.sort(indices, Comparator.comparingInt((Integer i) -> current.allowed[i]).reversed());
+
+        JPSPlugin[] sorted = new JPSPlugin[indices.length];
+        int[] allowed = new int[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            sorted[i] = current.plugins[indices[i]];
+            allowed[i] = current.allowed[indices[i]] / 2;
+        }
+        ordering = new Ordering(sorted, allowed);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return plugins.equals(((CompositePlugin) o).plugins);
+    }
+
+    @Override
+    public int hashCode() {
+        return plugins.hashCode();
+    }
+
+    private static final class Ordering {
+        private final JPSPlugin[] plugins;
+        // the same plugins, if they can share the blocks they read
+        private final StandardPlugin[] fused;
+        // by index in plugins: the number of moves each one allowed before any later one was asked
+        private final int[] allowed;
+
+        private Ordering(JPSPlugin[] plugins, int[] allowed) {
+            this.plugins = plugins;
+            this.allowed = allowed;
+            this.fused = canFuse(plugins) ? Arrays.copyOf(plugins, plugins.length, StandardPlugin[].class) : null;
+        }
+
+        private static boolean canFuse(JPSPlugin[] plugins) {
+            if (plugins.length == 0) {
+                return false;
+            }
+            for (JPSPlugin plugin : plugins) {
+                if (!(plugin instanceof StandardPlugin)) {
+                    return false;
+                }
+                StandardPlugin standard = (StandardPlugin) plugin;
+                StandardPlugin first = (StandardPlugin) plugins[0];
+                // plugins that decide their moves differently, e.g. FreeMovementPlugin, do not read the blocks
+                if (!standard.usesNeighbourhoodMask()
+                        || standard.world != first.world || standard.getSnapshot() != first.getSnapshot()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 }
@@ -2,10 +2,9 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.terasology.flexiblepathfinding.plugins.basic;
 
-import org.joml.Vector3i;
 import org.joml.Vector3ic;
 import org.terasology.engine.world.WorldProvider;
-import org.terasology.engine.world.block.BlockRegion;
+import org.terasology.flexiblepathfinding.WorldSnapshot;
 
 public class FlyingPlugin extends WalkingPlugin {
     public FlyingPlugin(WorldProvider world, float width, float height) {
@@ -20,24 +19,11 @@ public class FlyingPlugin extends WalkingPlugin {
         }
 
         // check that all blocks passed through by this movement are penetrable
-        for (Vector3ic occupiedBlock : getOccupiedRegionRelative()) {
-
-            // the start/stop for this block in the occupied region
-            Vector3i blockA = new Vector3i(a).add(occupiedBlock);
-            Vector3i blockB = new Vector3i(b).add(occupiedBlock);
-
-            BlockRegion movementBounds = new BlockRegion(blockA).union(blockB);
-            for (Vector3ic pos : movementBounds) {
-                if (!world.getBlock(pos).isPenetrable()) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return isMovementClear(a, b, WorldSnapshot.PENETRABLE);
     }
 
     @Override
     public boolean isWalkable(Vector3ic pos) {
-        return world.getBlock(pos).isPenetrable();
+        return isPenetrable(pos);
     }
 }
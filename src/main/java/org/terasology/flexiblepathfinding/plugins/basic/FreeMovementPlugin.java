@@ -16,6 +16,19 @@ public class FreeMovementPlugin extends StandardPlugin {
         return true;
     }
 
+    /**
+     * Nothing to read, so moves are asked about one at a time, which lets subclasses decide them individually.
+     */
+    @Override
+    public int reachableMask(Vector3ic from) {
+        return NO_MASK;
+    }
+
+    @Override
+    public boolean usesNeighbourhoodMask() {
+        return false;
+    }
+
     @Override
     public boolean inSight(Vector3ic start, Vector3ic stop) { return true; }
 }
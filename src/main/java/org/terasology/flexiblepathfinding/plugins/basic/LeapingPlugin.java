@@ -15,12 +15,11 @@
  */
 package org.terasology.flexiblepathfinding.plugins.basic;
 
-import org.joml.Vector3i;
 import org.joml.Vector3ic;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.engine.world.WorldProvider;
-import org.terasology.engine.world.block.BlockRegion;
+import org.terasology.flexiblepathfinding.WorldSnapshot;
 
 public class LeapingPlugin extends WalkingPlugin {
     private static final Logger logger = LoggerFactory.getLogger(LeapingPlugin.class);
@@ -37,17 +36,8 @@ public class LeapingPlugin extends WalkingPlugin {
         }
 
         // check that all blocks passed through by this movement are penetrable
-        for (Vector3ic occupiedBlock : getOccupiedRegionRelative()) {
-            // the start/stop for this block in the occupied region
-            Vector3i occupiedBlockTo = new Vector3i(to).add(occupiedBlock);
-            Vector3i occupiedBlockFrom = new Vector3i(from).add(occupiedBlock);
-
-            BlockRegion movementBounds = new BlockRegion(occupiedBlockTo).union(occupiedBlockFrom);
-            for (Vector3ic block : movementBounds) {
-                if (!world.getBlock(block).isPenetrable()) {
-                    return false;
-                }
-            }
+        if (!isMovementClear(to, from, WorldSnapshot.PENETRABLE)) {
+            return false;
         }
 
         return isWalkable(from);
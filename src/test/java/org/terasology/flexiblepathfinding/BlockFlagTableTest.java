@@ -0,0 +1,52 @@
+// Copyright 2026 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.flexiblepathfinding;
+
+import org.junit.jupiter.api.Test;
+import org.terasology.engine.world.block.Block;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BlockFlagTableTest {
+    @Test
+    public void flagsOfBlocks() {
+        Block ground = block((short) 101, false, false);
+        Block air = block((short) 102, true, false);
+        Block water = block((short) 103, true, true);
+        water.setWater(true);
+
+        assertEquals(WorldSnapshot.SOLID, BlockFlagTable.get(ground));
+        assertEquals(WorldSnapshot.PENETRABLE, BlockFlagTable.get(air));
+        assertEquals(WorldSnapshot.PENETRABLE | WorldSnapshot.LIQUID | WorldSnapshot.WATER, BlockFlagTable.get(water));
+        assertEquals(WorldSnapshot.SOLID, BlockFlagTable.get(null));
+    }
+
+    @Test
+    public void reboundIdIsRefreshed() {
+        Block before = block((short) 201, true, false);
+        assertEquals(WorldSnapshot.PENETRABLE, BlockFlagTable.get(before));
+
+        Block after = block((short) 201, false, false);
+        assertEquals(WorldSnapshot.SOLID, BlockFlagTable.get(after));
+        assertEquals(WorldSnapshot.PENETRABLE, BlockFlagTable.get(before));
+    }
+
+    @Test
+    public void clearedTableForgetsBlocks() {
+        Block block = block((short) 301, true, false);
+        assertEquals(WorldSnapshot.PENETRABLE, BlockFlagTable.get(block));
+
+        // a registry that changes a block in place, rather than binding a new one
+        BlockFlagTable.clear();
+        block.setPenetrable(false);
+        assertEquals(WorldSnapshot.SOLID, BlockFlagTable.get(block));
+    }
+
+    private static Block block(short id, boolean penetrable, boolean liquid) {
+        Block block = new Block();
+        block.setId(id);
+        block.setPenetrable(penetrable);
+        block.setLiquid(liquid);
+        return block;
+    }
+}
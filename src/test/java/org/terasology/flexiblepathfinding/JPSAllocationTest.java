@@ -0,0 +1,117 @@
+// Copyright 2026 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.flexiblepathfinding;
+
+import org.joml.Vector3i;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.engine.world.block.Block;
+import org.terasology.flexiblepathfinding.helpers.MapWorldProvider;
+import org.terasology.flexiblepathfinding.metrics.PathMetric;
+import org.terasology.flexiblepathfinding.plugins.basic.CompositePlugin;
+import org.terasology.flexiblepathfinding.plugins.basic.FreeMovementPlugin;
+import org.terasology.flexiblepathfinding.plugins.basic.WalkingPlugin;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures the bytes allocated by the search thread per explored node, using the HotSpot specific
+ * {@link com.sun.management.ThreadMXBean}.
+ */
+public class JPSAllocationTest {
+    private static final Logger logger = LoggerFactory.getLogger(JPSAllocationTest.class);
+
+    // what remains is the path itself, the metric and the occasional growth of a pooled array
+    private static final double MAX_BYTES_PER_NODE = 256;
+    // plugins reading blocks make for fewer but more expensive nodes, so copying a plugin or a vector per node shows
+    private static final double MAX_BYTES_PER_NODE_READING_BLOCKS = 128;
+
+    private com.sun.management.ThreadMXBean threads;
+
+    @BeforeEach
+    public void setup() {
+        Assumptions.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    public void bytesPerExploredNode() throws InterruptedException {
+        JPSConfig config = new JPSConfig(new Vector3i(), new Vector3i(60, 5, 40));
+        config.plugin = new FreeMovementPlugin(null, 0, 0);
+        assertBytesPerNode(config, MAX_BYTES_PER_NODE);
+    }
+
+    @Test
+    public void compositeMaskWithoutFusing() {
+        // FreeMovementPlugin has no mask of its own, so the composite asks it about each move
+        CompositePlugin plugin = new CompositePlugin(new FreeMovementPlugin(null, 0, 0));
+        Vector3i from = new Vector3i();
+        // the first round warms up the JIT
+        long allocated = 0;
+        for (int round = 0; round < 2; round++) {
+            long threadId = Thread.currentThread().getId();
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < 10000; i++) {
+                plugin.reachableMask(from.set(i, 0, 0));
+            }
+            allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        }
+        // only the occasional reordering of the plugins allocates
+        assertTrue(allocated < 10000, allocated + " bytes allocated for 10000 masks");
+    }
+
+    @Test
+    public void bytesPerExploredNodeReadingBlocks() throws InterruptedException {
+        // goes through StandardPlugin.reachableMask, reading the blocks around every position from the world
+        JPSConfig config = new JPSConfig(new Vector3i(), new Vector3i(60, 0, 40));
+        config.plugin = new WalkingPlugin(new PlaneWorldProvider(), 0.8f, 1.7f);
+        assertBytesPerNode(config, MAX_BYTES_PER_NODE_READING_BLOCKS);
+    }
+
+    private void assertBytesPerNode(JPSConfig config, double maxBytesPerNode) throws InterruptedException {
+        // the first search warms up the pooled node arena, the buffers of the plugin and the JIT
+        search(config);
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        PathMetric metric = search(config);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        double bytesPerNode = allocated / metric.nodesExplored;
+        logger.info("{} bytes allocated for {} explored nodes: {} bytes per node", allocated, metric.nodesExplored, bytesPerNode);
+        assertTrue(bytesPerNode < maxBytesPerNode, bytesPerNode + " bytes allocated per explored node");
+    }
+
+    private PathMetric search(JPSConfig config) throws InterruptedException {
+        JPSImpl jps = new JPSImpl(config);
+        assertTrue(jps.run());
+        return jps.getMetric();
+    }
+
+    /**
+     * Ground below y = 0 and air above, without allocating on lookups like {@link MapWorldProvider} does.
+     */
+    private static class PlaneWorldProvider extends MapWorldProvider {
+        private final Block ground = new Block();
+        private final Block air = new Block();
+
+        PlaneWorldProvider() {
+            super(new String[0]);
+            ground.setId((short) 1);
+            air.setId((short) 2);
+            air.setPenetrable(true);
+        }
+
+        @Override
+        public Block getBlock(int x, int y, int z) {
+            return y < 0 ? ground : air;
+        }
+    }
+}
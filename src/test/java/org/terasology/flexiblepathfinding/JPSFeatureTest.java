@@ -16,12 +16,16 @@
 package org.terasology.flexiblepathfinding;
 
 import org.joml.Vector3i;
+import org.joml.Vector3ic;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.terasology.engine.world.WorldProvider;
 import org.terasology.engine.world.time.WorldTime;
 import org.terasology.flexiblepathfinding.plugins.basic.FreeMovementPlugin;
 
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -40,6 +44,108 @@ public class JPSFeatureTest {
         config.maxDepth = 0;
         JPSImpl jps = new JPSImpl(config);
         assertFalse(jps.run());
+        assertEquals(PathStatus.UNREACHABLE, jps.getStatus());
+    }
+
+    @Test
+    public void maxExploredNodes() throws InterruptedException {
+        JPSConfig config = new JPSConfig(new Vector3i(), new Vector3i(0, 0, 1).mul(10));
+        config.plugin = new FreeMovementPlugin(null, 0, 0);
+        config.maxExploredNodes = 5;
+        JPSImpl jps = new JPSImpl(config);
+        assertFalse(jps.run());
+        assertEquals(PathStatus.BUDGET_EXHAUSTED, jps.getStatus());
+    }
+
+    @Test
+    public void maxTime() throws InterruptedException {
+        JPSConfig config = new JPSConfig(new Vector3i(), new Vector3i(0, 0, 1).mul(10));
+        config.plugin = new FreeMovementPlugin(null, 0, 0);
+        config.maxTime = 0;
+        JPSImpl jps = new JPSImpl(config);
+        assertFalse(jps.run());
+        assertEquals(PathStatus.TIMEOUT, jps.getStatus());
+        assertEquals(PathStatus.TIMEOUT, jps.getMetric().status);
+    }
+
+    @Test
+    public void partialPath() throws InterruptedException {
+        JPSConfig config = new JPSConfig(new Vector3i(), new Vector3i(0, 0, 1).mul(10));
+        config.plugin = new FreeMovementPlugin(null, 0, 0);
+        config.maxExploredNodes = 30;
+        config.partialPath = true;
+        JPSImpl jps = new JPSImpl(config);
+        assertFalse(jps.run());
+        assertEquals(PathStatus.PARTIAL, jps.getStatus());
+
+        List<Vector3i> path = jps.getPath();
+        assertEquals(new Vector3i(), path.get(0));
+        assertTrue(path.get(path.size() - 1).distance(config.stop) < config.start.distance(config.stop));
+        assertFalse(jps.getMetric().success);
+    }
+
+    @Test
+    public void traversalCosts() throws InterruptedException {
+        // a room with a band across the direct way that is expensive to cross, and a way around it
+        FreeMovementPlugin plugin = new FreeMovementPlugin(null, 0, 0) {
+            @Override
+            public boolean isReachable(Vector3ic to, Vector3ic from) {
+                return to.y() == 0 && to.x() >= -2 && to.x() <= 14 && Math.abs(to.z()) <= 8;
+            }
+
+            @Override
+            public float traversalCost(Vector3ic to, Vector3ic from) {
+                return isExpensive(to) ? 10 : 1;
+            }
+        };
+
+        for (boolean usePruning : new boolean[]{false, true}) {
+            JPSConfig config = new JPSConfig(new Vector3i(), new Vector3i(12, 0, 0));
+            config.plugin = plugin;
+            config.usePruning = usePruning;
+            JPSImpl jps = new JPSImpl(config);
+            assertTrue(jps.run());
+            assertTrue(jps.getPath().stream().anyMatch(JPSFeatureTest::isExpensive));
+
+            config.useTraversalCosts = true;
+            jps = new JPSImpl(config);
+            assertTrue(jps.run());
+            assertEquals(config.stop, jps.getPath().get(jps.getPath().size() - 1));
+            assertFalse(jps.getPath().stream().anyMatch(JPSFeatureTest::isExpensive), jps.getPath().toString());
+            assertTrue(jps.getMetric().cost < 12 + 3 * 9);
+        }
+    }
+
+    private static boolean isExpensive(Vector3ic pos) {
+        return pos.x() >= 5 && pos.x() <= 7 && Math.abs(pos.z()) <= 5;
+    }
+
+    @Test
+    public void resumedSearch() throws InterruptedException {
+        JPSConfig config = new JPSConfig(new Vector3i(), new Vector3i(3, 2, 1).mul(10));
+        config.plugin = new FreeMovementPlugin(null, 0, 0);
+        JPSImpl jps = new JPSImpl(config);
+        assertTrue(jps.run());
+
+        JPSImpl resumed = new JPSImpl(config);
+        int slices = 1;
+        while (resumed.resume(1) == null) {
+            assertFalse(resumed.isFinished());
+            slices++;
+        }
+        assertTrue(slices > 1);
+        assertTrue(resumed.isFinished());
+        assertEquals(PathStatus.FOUND, resumed.resume(1));
+        assertEquals(jps.getPath(), resumed.getPath());
+    }
+
+    @Test
+    public void longPath() throws InterruptedException {
+        JPSConfig config = new JPSConfig(new Vector3i(), new Vector3i(0, 0, 1).mul(200));
+        config.plugin = new FreeMovementPlugin(null, 0, 0);
+        JPSImpl jps = new JPSImpl(config);
+        assertTrue(jps.run());
+        assertEquals(PathStatus.FOUND, jps.getStatus());
     }
 
     @Test
@@ -0,0 +1,42 @@
+// Copyright 2026 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.flexiblepathfinding;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class JPSForcedNeighborsTest {
+    @Test
+    public void candidatesExcludeNaturalNeighborsAndParent() {
+        int candidates = JPSForcedNeighbors.getCandidateMask(JPSDirection.NORTH_EAST);
+        assertEquals(0, candidates & JPSDirection.NORTH_EAST.bit());
+        assertEquals(0, candidates & JPSDirection.NORTH.bit());
+        assertEquals(0, candidates & JPSDirection.EAST.bit());
+        assertEquals(0, candidates & JPSDirection.SOUTH_WEST.bit());
+        assertNotEquals(0, candidates & JPSDirection.UP.bit());
+    }
+
+    @Test
+    public void parentMaskIsTranslatedToCurrentFrame() {
+        // the parent is one block south of the current block
+        assertEquals(JPSDirection.UP_SOUTH.bit(), JPSForcedNeighbors.toCurrentFrame(JPSDirection.NORTH, JPSDirection.UP.bit()));
+        assertEquals(JPSDirection.EAST.bit(), JPSForcedNeighbors.toCurrentFrame(JPSDirection.NORTH, JPSDirection.NORTH_EAST.bit()));
+        // the current block itself and blocks out of its reach are dropped
+        assertEquals(0, JPSForcedNeighbors.toCurrentFrame(JPSDirection.NORTH, JPSDirection.NORTH.bit()));
+        assertEquals(0, JPSForcedNeighbors.toCurrentFrame(JPSDirection.NORTH, JPSDirection.SOUTH.bit()));
+    }
+
+    @Test
+    public void nothingIsForcedInOpenSpace() {
+        for (JPSDirection dir : JPSDirection.values()) {
+            int candidates = JPSForcedNeighbors.getCandidateMask(dir) & ~dir.getKeyNodeMask();
+            for (JPSDirection neighbor : JPSDirection.values()) {
+                if ((candidates & neighbor.bit()) != 0) {
+                    assertNotEquals(0, JPSForcedNeighbors.getDominatingKeyNodeMask(dir, neighbor.ordinal()), dir + " -> " + neighbor);
+                }
+            }
+        }
+    }
+}
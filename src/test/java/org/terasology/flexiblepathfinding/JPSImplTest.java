@@ -0,0 +1,167 @@
+// Copyright 2026 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.flexiblepathfinding;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.joml.Vector3i;
+import org.joml.Vector3ic;
+import org.junit.jupiter.api.Test;
+import org.terasology.flexiblepathfinding.plugins.basic.FreeMovementPlugin;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JPSImplTest {
+    @Test
+    public void costModeFindsCheaperWayIntoGoal() throws InterruptedException {
+        for (int sign : new int[]{1, -1}) {
+            Vector3i start = new Vector3i();
+            Vector3i corner = new Vector3i(sign, 0, 0);
+            Vector3i detour = new Vector3i(2 * sign, 0, 1);
+            Vector3i goal = new Vector3i(2 * sign, 0, 0);
+            // the step from the corner straight into the goal costs 10, going round through the detour costs 2.41
+            CellsPlugin plugin = new CellsPlugin(start, corner, detour, goal) {
+                @Override
+                public float traversalCost(Vector3ic to, Vector3ic from) {
+                    return from.equals(corner) && to.equals(goal) ? 10 : 1;
+                }
+            };
+
+            for (boolean usePruning : new boolean[]{false, true}) {
+                JPSConfig config = new JPSConfig(start, goal);
+                config.plugin = plugin;
+                config.usePruning = usePruning;
+                config.useTraversalCosts = true;
+                JPSImpl jps = new JPSImpl(config);
+                assertTrue(jps.run());
+                assertEquals(Arrays.asList(start, corner, detour, goal), jps.getPath(), "pruning: " + usePruning);
+                assertEquals(2 + Math.sqrt(2), jps.getMetric().cost, 1e-6, "pruning: " + usePruning);
+            }
+        }
+    }
+
+    @Test
+    public void costsAreAskedOncePerMove() throws InterruptedException {
+        Map<List<Vector3i>, Integer> asked = Maps.newHashMap();
+        // a flat room with a strip of expensive ground across it
+        FreeMovementPlugin plugin = new FreeMovementPlugin(null, 0, 0) {
+            @Override
+            public boolean isReachable(Vector3ic to, Vector3ic from) {
+                return to.y() == 0 && to.x() >= -1 && to.x() <= 11 && Math.abs(to.z()) <= 5;
+            }
+
+            @Override
+            public boolean inSight(Vector3ic start, Vector3ic stop) {
+                return false;
+            }
+
+            @Override
+            public float traversalCost(Vector3ic to, Vector3ic from) {
+                asked.merge(Arrays.asList(new Vector3i(to), new Vector3i(from)), 1, Integer::sum);
+                return to.x() == 5 && Math.abs(to.z()) <= 3 ? 10 : 1;
+            }
+        };
+
+        JPSConfig config = new JPSConfig(new Vector3i(), new Vector3i(10, 0, 0));
+        config.plugin = plugin;
+        config.usePruning = true;
+        config.useTraversalCosts = true;
+        JPSImpl jps = new JPSImpl(config);
+        assertTrue(jps.run());
+
+        // once for the mask of weighted moves from a position, and once more for the cost of a step taken
+        assertTrue(asked.values().stream().allMatch(times -> times <= 2), asked.toString());
+    }
+
+    @Test
+    public void costModeMeasuresGoalDistanceFromTheStop() throws InterruptedException {
+        // a room split by a wall with gaps at both ends, and an expensive strip in front of the stop
+        FreeMovementPlugin plugin = new FreeMovementPlugin(null, 0, 0) {
+            @Override
+            public boolean isReachable(Vector3ic to, Vector3ic from) {
+                return to.y() == 0 && to.x() >= 0 && to.x() <= 14 && Math.abs(to.z()) <= 6
+                        && (to.x() != 6 || Math.abs(to.z()) >= 5);
+            }
+
+            @Override
+            public boolean inSight(Vector3ic start, Vector3ic stop) {
+                return false;
+            }
+
+            @Override
+            public float traversalCost(Vector3ic to, Vector3ic from) {
+                return to.x() == 8 ? 3 : 1;
+            }
+        };
+
+        Vector3i stop = new Vector3i(10, 0, 0);
+        for (boolean usePruning : new boolean[]{false, true}) {
+            JPSConfig config = new JPSConfig(new Vector3i(), stop);
+            config.plugin = plugin;
+            config.goalDistance = 3;
+            config.usePruning = usePruning;
+            config.useTraversalCosts = true;
+            JPSImpl jps = new JPSImpl(config);
+            assertTrue(jps.run());
+            Vector3i end = jps.getPath().get(jps.getPath().size() - 1);
+            assertTrue(end.distance(stop) <= 3, "pruning: " + usePruning + ", " + jps.getPath());
+            // round the wall and straight down to (7, 0, 0), without touching the expensive strip
+            assertEquals(5 + 6 * Math.sqrt(2), jps.getMetric().cost, 1e-6, "pruning: " + usePruning);
+        }
+    }
+
+    @Test
+    public void searchesStayWithinTheKeyRange() throws InterruptedException {
+        int max = JPSNodeTable.MAX_COORDINATE;
+        // a wall at x = max - 1 that has to be passed on the side beyond the end of the range
+        FreeMovementPlugin plugin = new FreeMovementPlugin(null, 0, 0) {
+            @Override
+            public boolean isReachable(Vector3ic to, Vector3ic from) {
+                return to.y() == 0 && Math.abs(to.z()) <= 3 && (to.x() != max - 1 || to.z() > 2);
+            }
+
+            @Override
+            public boolean inSight(Vector3ic start, Vector3ic stop) {
+                return false;
+            }
+        };
+
+        JPSConfig config = new JPSConfig(new Vector3i(max - 3, 0, 0), new Vector3i(max, 0, 0));
+        config.plugin = plugin;
+        JPSImpl jps = new JPSImpl(config);
+        assertTrue(jps.run());
+        assertTrue(jps.getPath().stream().allMatch(pos -> pos.x <= max), jps.getPath().toString());
+
+        config.stop = new Vector3i(max + 1, 0, 0);
+        assertThrows(IllegalArgumentException.class, () -> new JPSImpl(config).run());
+    }
+
+    /**
+     * Allows moves between any of the given cells, and nowhere else.
+     */
+    private static class CellsPlugin extends FreeMovementPlugin {
+        private final Set<Vector3ic> cells;
+
+        CellsPlugin(Vector3ic... cells) {
+            super(null, 0, 0);
+            this.cells = Sets.newHashSet(cells);
+        }
+
+        @Override
+        public boolean isReachable(Vector3ic to, Vector3ic from) {
+            return cells.contains(to) && cells.contains(from);
+        }
+
+        @Override
+        public boolean inSight(Vector3ic start, Vector3ic stop) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+// Copyright 2026 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.flexiblepathfinding;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class JPSNodeArenaTest {
+    @BeforeEach
+    public void drainPool() {
+        while (JPSNodeArena.getPoolSize() > 0) {
+            JPSNodeArena.obtain();
+        }
+    }
+
+    @Test
+    public void reusesFreedArena() {
+        JPSNodeArena arena = JPSNodeArena.obtain();
+        arena.getOrCreate(1, 2, 3);
+        JPSNodeArena.free(arena);
+
+        JPSNodeArena reused = JPSNodeArena.obtain();
+        assertSame(arena, reused);
+        assertEquals(0, reused.size());
+    }
+
+    @Test
+    public void poolIsCapped() {
+        for (int i = 0; i < JPSNodeArena.MAX_POOLED + 10; i++) {
+            JPSNodeArena.free(new JPSNodeArena());
+        }
+        assertEquals(JPSNodeArena.MAX_POOLED, JPSNodeArena.getPoolSize());
+    }
+
+    @Test
+    public void oversizedArenaIsDiscarded() {
+        JPSNodeArena arena = JPSNodeArena.obtain();
+        for (int x = 0; arena.getAllocatedBytes() <= JPSNodeArena.MAX_POOLED_BYTES; x++) {
+            arena.getOrCreate(x, 0, 0);
+        }
+        JPSNodeArena.free(arena);
+
+        assertEquals(0, JPSNodeArena.getPoolSize());
+        assertNotSame(arena, JPSNodeArena.obtain());
+    }
+}
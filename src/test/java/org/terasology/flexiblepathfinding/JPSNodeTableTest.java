@@ -0,0 +1,65 @@
+// Copyright 2026 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.flexiblepathfinding;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JPSNodeTableTest {
+    @Test
+    public void packRoundTrips() {
+        int[][] positions = new int[][]{{0, 0, 0}, {-1, -1, -1}, {1048575, -1048576, 12}, {-300, 64, 70000}};
+        for (int[] pos : positions) {
+            long key = JPSNodeTable.pack(pos[0], pos[1], pos[2]);
+            assertEquals(pos[0], JPSNodeTable.unpackX(key));
+            assertEquals(pos[1], JPSNodeTable.unpackY(key));
+            assertEquals(pos[2], JPSNodeTable.unpackZ(key));
+        }
+    }
+
+    @Test
+    public void rejectsPositionsOutOfRange() {
+        int min = JPSNodeTable.MIN_COORDINATE;
+        int max = JPSNodeTable.MAX_COORDINATE;
+        assertTrue(JPSNodeTable.inRange(min, max, min));
+        assertEquals(max, JPSNodeTable.unpackY(JPSNodeTable.pack(min, max, min)));
+
+        int[][] positions = new int[][]{
+                {max + 1, 0, 0}, {0, min - 1, 0}, {0, 0, Integer.MAX_VALUE}, {Integer.MIN_VALUE, 0, 0}};
+        for (int[] pos : positions) {
+            assertFalse(JPSNodeTable.inRange(pos[0], pos[1], pos[2]));
+            assertThrows(IllegalArgumentException.class, () -> JPSNodeTable.pack(pos[0], pos[1], pos[2]));
+        }
+
+        // would alias (min, 0, 0) if it was not rejected
+        assertThrows(IllegalArgumentException.class, () -> new JPSNodeTable(4).put(max + 1, 0, 0, 0));
+    }
+
+    @Test
+    public void storesAndGrows() {
+        JPSNodeTable table = new JPSNodeTable(4);
+        int index = 0;
+        for (int x = -20; x < 20; x++) {
+            for (int y = -20; y < 20; y++) {
+                table.put(x, y, -x, index++);
+            }
+        }
+        assertEquals(1600, table.size());
+
+        index = 0;
+        for (int x = -20; x < 20; x++) {
+            for (int y = -20; y < 20; y++) {
+                assertEquals(index++, table.get(x, y, -x));
+            }
+        }
+        assertEquals(JPSNodeTable.NONE, table.get(0, 0, 1));
+
+        table.clear();
+        assertEquals(0, table.size());
+        assertEquals(JPSNodeTable.NONE, table.get(0, 0, 0));
+    }
+}
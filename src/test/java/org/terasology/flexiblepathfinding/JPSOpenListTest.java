@@ -0,0 +1,135 @@
+// Copyright 2026 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.flexiblepathfinding;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JPSOpenListTest {
+    private static final Logger logger = LoggerFactory.getLogger(JPSOpenListTest.class);
+
+    @Test
+    public void pollsInKeyOrder() {
+        JPSOpenList open = new JPSOpenList(2);
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            open.push(i, random.nextInt(100));
+        }
+
+        double last = Double.NEGATIVE_INFINITY;
+        while (!open.isEmpty()) {
+            double key = open.peekKey();
+            open.poll();
+            assertTrue(key >= last);
+            last = key;
+        }
+    }
+
+    @Test
+    public void equalKeysAreLastInFirstOut() {
+        JPSOpenList open = new JPSOpenList();
+        open.push(0, 1.0);
+        open.push(1, 1.0);
+        open.push(2, 1.0);
+
+        assertEquals(2, open.poll());
+        assertEquals(1, open.poll());
+        assertEquals(0, open.poll());
+    }
+
+    @Test
+    public void pushUpdatesQueuedNode() {
+        JPSOpenList open = new JPSOpenList();
+        open.push(0, 5.0);
+        open.push(1, 3.0);
+        open.push(2, 4.0);
+
+        // decrease-key
+        open.push(0, 1.0);
+        assertEquals(3, open.size());
+        assertEquals(0, open.peek());
+
+        // increase-key
+        open.push(0, 10.0);
+        assertEquals(3, open.size());
+        assertEquals(1, open.poll());
+        assertEquals(2, open.poll());
+        assertEquals(0, open.poll());
+        assertFalse(open.contains(0));
+    }
+
+    @Test
+    public void clearKeepsListUsable() {
+        JPSOpenList open = new JPSOpenList();
+        open.push(7, 1.0);
+        open.push(3, 2.0);
+        open.clear();
+
+        assertTrue(open.isEmpty());
+        assertFalse(open.contains(7));
+        open.push(3, 0.5);
+        assertEquals(3, open.poll());
+    }
+
+    /**
+     * One simulated expansion (poll one node, push a handful of successors, re-key one of them) at increasing open list
+     * sizes. The old sort-per-expansion open list grew linearly (or worse) here; the heap should only grow
+     * logarithmically. Asserts on the number of key comparisons, which unlike the time does not depend on the load of
+     * the machine; the time is only logged.
+     */
+    @Test
+    public void expansionCostStaysFlat() {
+        int[] sizes = new int[]{1 << 10, 1 << 13, 1 << 16};
+        int expansions = 20000;
+        double[] comparisonsPerExpansion = new double[sizes.length];
+
+        for (int i = 0; i < sizes.length; i++) {
+            JPSOpenList open = fill(sizes[i]);
+            long comparisons = open.getComparisons();
+            long start = System.nanoTime();
+            expand(open, sizes[i], expansions);
+            comparisonsPerExpansion[i] = (open.getComparisons() - comparisons) / (double) expansions;
+            logger.info("open list size {}: {} comparisons and {} ns per expansion", sizes[i],
+                    comparisonsPerExpansion[i], (System.nanoTime() - start) / (double) expansions);
+        }
+
+        // 64x more queued nodes is log4(64) = 3 more heap levels, nowhere near 64x more work per expansion
+        assertTrue(comparisonsPerExpansion[sizes.length - 1] < comparisonsPerExpansion[0] * 2,
+                "comparisons grew from " + comparisonsPerExpansion[0] + " to "
+                        + comparisonsPerExpansion[sizes.length - 1] + " per expansion");
+    }
+
+    private static JPSOpenList fill(int size) {
+        Random random = new Random(size);
+        JPSOpenList open = new JPSOpenList();
+        for (int node = 0; node < size; node++) {
+            open.push(node, random.nextDouble() * 1000);
+        }
+        return open;
+    }
+
+    private static void expand(JPSOpenList open, int size, int expansions) {
+        Random random = new Random(-size);
+        int nextNode = size;
+
+        for (int i = 0; i < expansions; i++) {
+            double key = open.peekKey();
+            open.poll();
+            for (int j = 0; j < 4; j++) {
+                open.push(nextNode++, key + random.nextDouble() * 10);
+            }
+            open.push(nextNode - 1, key);
+            // keep the list at a steady size
+            for (int j = 0; j < 3; j++) {
+                open.poll();
+            }
+        }
+    }
+}
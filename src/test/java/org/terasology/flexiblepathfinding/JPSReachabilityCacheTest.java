@@ -0,0 +1,78 @@
+// Copyright 2026 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.flexiblepathfinding;
+
+import org.joml.Vector3i;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class JPSReachabilityCacheTest {
+    @Test
+    public void unknownUntilPut() {
+        JPSReachabilityCache cache = new JPSReachabilityCache();
+        assertEquals(JPSReachabilityCache.UNKNOWN, cache.get(1, 2, 3, JPSDirection.NORTH));
+
+        cache.put(1, 2, 3, JPSDirection.NORTH, false);
+        cache.put(1, 2, 3, JPSDirection.UP, true);
+        assertEquals(JPSReachabilityCache.NOT_REACHABLE, cache.get(1, 2, 3, JPSDirection.NORTH));
+        assertEquals(JPSReachabilityCache.REACHABLE, cache.get(1, 2, 3, JPSDirection.UP));
+        assertEquals(JPSReachabilityCache.UNKNOWN, cache.get(1, 2, 3, JPSDirection.DOWN));
+        assertEquals(JPSReachabilityCache.UNKNOWN, cache.get(3, 2, 1, JPSDirection.UP));
+    }
+
+    @Test
+    public void reachableMaskNeedsAllDirections() {
+        JPSReachabilityCache cache = new JPSReachabilityCache();
+        for (JPSDirection dir : JPSDirection.values()) {
+            assertEquals(JPSReachabilityCache.UNKNOWN, cache.getReachableMask(0, 0, 0));
+            cache.put(0, 0, 0, dir, dir != JPSDirection.DOWN);
+        }
+        assertEquals(JPSForcedNeighbors.ALL_DIRECTIONS & ~JPSDirection.DOWN.bit(), cache.getReachableMask(0, 0, 0));
+    }
+
+    @Test
+    public void weightedMaskIsUnknownUntilPut() {
+        JPSReachabilityCache cache = new JPSReachabilityCache();
+        cache.putMask(0, 0, 0, JPSForcedNeighbors.ALL_DIRECTIONS);
+        assertEquals(JPSReachabilityCache.UNKNOWN, cache.getWeightedMask(0, 0, 0));
+
+        cache.putWeightedMask(0, 0, 0, 0);
+        cache.putWeightedMask(1, 0, 0, JPSDirection.UP.bit());
+        assertEquals(0, cache.getWeightedMask(0, 0, 0));
+        assertEquals(JPSDirection.UP.bit(), cache.getWeightedMask(1, 0, 0));
+        assertEquals(JPSForcedNeighbors.ALL_DIRECTIONS, cache.getReachableMask(0, 0, 0));
+
+        cache.clear();
+        assertEquals(JPSReachabilityCache.UNKNOWN, cache.getWeightedMask(1, 0, 0));
+    }
+
+    @Test
+    public void movesWithCollidingHashesAreDistinct() {
+        // both ends of these moves have equal hash codes, so the key of the old Guava cache (which compared keys by
+        // hash code only) treated them as the same move
+        Vector3i fromA = new Vector3i(0, 0, 31);
+        Vector3i fromB = new Vector3i(0, 1, 0);
+        assertEquals(fromA.hashCode(), fromB.hashCode());
+        assertEquals(new Vector3i(fromA).add(0, 0, 1).hashCode(), new Vector3i(fromB).add(0, 0, 1).hashCode());
+
+        JPSReachabilityCache cache = new JPSReachabilityCache();
+        cache.put(fromA.x, fromA.y, fromA.z, JPSDirection.NORTH, true);
+        cache.put(fromB.x, fromB.y, fromB.z, JPSDirection.NORTH, false);
+        assertEquals(JPSReachabilityCache.REACHABLE, cache.get(fromA.x, fromA.y, fromA.z, JPSDirection.NORTH));
+        assertEquals(JPSReachabilityCache.NOT_REACHABLE, cache.get(fromB.x, fromB.y, fromB.z, JPSDirection.NORTH));
+    }
+
+    @Test
+    public void clearForgetsEverything() {
+        JPSReachabilityCache cache = new JPSReachabilityCache(16);
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, -i, i, JPSDirection.EAST, true);
+        }
+        assertEquals(100, cache.size());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(JPSReachabilityCache.UNKNOWN, cache.get(5, -5, 5, JPSDirection.EAST));
+    }
+}
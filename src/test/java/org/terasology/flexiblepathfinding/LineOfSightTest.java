@@ -20,9 +20,13 @@ import org.junit.jupiter.api.Test;
 import org.terasology.engine.world.WorldProvider;
 import org.terasology.flexiblepathfinding.helpers.MapWorldProvider;
 import org.terasology.flexiblepathfinding.helpers.TestDataPojo;
+import org.terasology.flexiblepathfinding.plugins.basic.CompositePlugin;
 import org.terasology.flexiblepathfinding.plugins.basic.FlyingPlugin;
+import org.terasology.flexiblepathfinding.plugins.basic.LeapingPlugin;
+import org.terasology.flexiblepathfinding.plugins.basic.WalkingPlugin;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class LineOfSightTest {
@@ -87,6 +91,32 @@ public class LineOfSightTest {
         });
     }
 
+    @Test
+    public void composite() throws InterruptedException {
+        WorldProvider worldProvider = new MapWorldProvider(new String[]{
+            "     |XXXXX|XXXXX",
+            "     |XXXXX|XXXXX",
+            "     |XX XX|XXXXX",
+        });
+        CompositePlugin plugin = new CompositePlugin(
+            new WalkingPlugin(worldProvider, 0.4f, 0.4f),
+            new LeapingPlugin(worldProvider, 0.4f, 0.4f)
+        );
+
+        assertTrue(plugin.inSight(new Vector3i(0, 1, 0), new Vector3i(4, 1, 1)));
+        // blocked
+        assertFalse(plugin.inSight(new Vector3i(0, 1, 2), new Vector3i(4, 1, 2)));
+        // clear, but walkers cannot rise along a slope
+        assertFalse(plugin.inSight(new Vector3i(0, 1, 0), new Vector3i(4, 2, 0)));
+
+        JPSConfig config = new JPSConfig(new Vector3i(0, 1, 0), new Vector3i(4, 1, 1));
+        config.useLineOfSight = true;
+        config.plugin = plugin;
+        JPSImpl jps = new JPSImpl(config);
+        assertTrue(jps.run());
+        assertEquals(2, jps.getPath().size());
+    }
+
     static WorldProvider runLineOfSight(boolean expected, String[] ground, String[] pathData) {
         TestDataPojo testData = new TestDataPojo();
         MapWorldProvider worldProvider = new MapWorldProvider(ground);
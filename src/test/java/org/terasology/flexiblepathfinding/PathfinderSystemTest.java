@@ -15,15 +15,37 @@
  */
 package org.terasology.flexiblepathfinding;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import org.joml.Vector3i;
+import org.joml.Vector3ic;
 import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.terasology.engine.entitySystem.entity.EntityManager;
 import org.terasology.engine.entitySystem.entity.EntityRef;
 import org.terasology.engine.entitySystem.entity.internal.PojoEntityManager;
+import org.terasology.engine.world.block.Block;
+import org.terasology.flexiblepathfinding.helpers.MapWorldProvider;
+import org.terasology.flexiblepathfinding.plugins.basic.FlyingPlugin;
+import org.terasology.flexiblepathfinding.plugins.basic.FreeMovementPlugin;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class PathfinderSystemTest {
+    private static final Logger logger = LoggerFactory.getLogger(PathfinderSystemTest.class);
+
     @Test
     public void exclusion() {
         PathfinderSystem pathfinderSystem = new PathfinderSystem();
@@ -32,8 +54,633 @@ public class PathfinderSystemTest {
 
         JPSConfig config = new JPSConfig(new Vector3i(), new Vector3i(0,0,1));
         config.requester = entity;
+        // keep the first request pending until both have been made, as a worker may pick it up right away
+        CountDownLatch release = new CountDownLatch(1);
+        config.plugin = new BlockingPlugin(release);
 
         assertEquals(pathfinderSystem.requestPath(config, null), 0);
         assertEquals(pathfinderSystem.requestPath(config, null), -1);
+        release.countDown();
+        pathfinderSystem.shutdown();
+    }
+
+    @Test
+    public void requestsAfterShutdownAreRefused() throws Exception {
+        PathfinderSystem pathfinderSystem = createSystem(1, PathfinderSystemConfig.ThreadMode.PLATFORM);
+        assertEquals(PathStatus.FOUND,
+                pathfinderSystem.requestPath(createConfig(PathUrgency.NORMAL)).get(10, TimeUnit.SECONDS).getStatus());
+        pathfinderSystem.shutdown();
+
+        assertEquals(-1, pathfinderSystem.requestPath(createConfig(PathUrgency.NORMAL), null));
+        assertEquals(PathStatus.REJECTED,
+                pathfinderSystem.requestPath(createConfig(PathUrgency.NORMAL)).get(10, TimeUnit.SECONDS).getStatus());
+        assertEquals(2, pathfinderSystem.getRejected());
+        assertEquals(0, pathfinderSystem.getQueueSize());
+    }
+
+    @Test
+    public void cancelledRequestIsDropped() throws InterruptedException {
+        PathfinderSystem pathfinderSystem = createSystem(1, PathfinderSystemConfig.ThreadMode.PLATFORM);
+        List<String> completed = Collections.synchronizedList(Lists.newArrayList());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+
+        JPSConfig blocking = new JPSConfig(new Vector3i(), new Vector3i(0, 0, 1));
+        blocking.plugin = new BlockingPlugin(release, started);
+        pathfinderSystem.requestPath(blocking, (path, target) -> done.countDown());
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        for (String name : new String[] {"cancelled", "kept"}) {
+            JPSConfig config = new JPSConfig(new Vector3i(), new Vector3i(0, 0, 1));
+            config.plugin = new FreeMovementPlugin(null, 0, 0);
+            int id = pathfinderSystem.requestPath(config, (path, target) -> {
+                completed.add(name);
+                done.countDown();
+            });
+            if (name.equals("cancelled")) {
+                assertTrue(pathfinderSystem.cancel(id));
+                assertFalse(pathfinderSystem.cancel(id));
+            }
+        }
+        release.countDown();
+
+        // the requests run in order, so the cancelled one would have completed before the other one
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(Lists.newArrayList("kept"), completed);
+        assertEquals(1, pathfinderSystem.getCancelledQueued());
+        assertEquals(0, pathfinderSystem.getCancelledRunning());
+        pathfinderSystem.shutdown();
+    }
+
+    @Test
+    public void cancelInterruptsRunningSearch() throws InterruptedException {
+        PathfinderSystem pathfinderSystem = createSystem(1, PathfinderSystemConfig.ThreadMode.PLATFORM);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        List<String> completed = Collections.synchronizedList(Lists.newArrayList());
+
+        // never released, so this only ends by being interrupted
+        JPSConfig blocking = new JPSConfig(new Vector3i(), new Vector3i(0, 0, 1000));
+        blocking.plugin = new BlockingPlugin(new CountDownLatch(1), started);
+        int id = pathfinderSystem.requestPath(blocking, (path, target) -> completed.add("cancelled"));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertTrue(pathfinderSystem.cancel(id));
+
+        JPSConfig config = new JPSConfig(new Vector3i(), new Vector3i(0, 0, 3));
+        config.plugin = new FreeMovementPlugin(null, 0, 0);
+        pathfinderSystem.requestPath(config, (path, target) -> {
+            assertEquals(4, path.size());
+            completed.add("next");
+            done.countDown();
+        });
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(Lists.newArrayList("next"), completed);
+        assertEquals(1, pathfinderSystem.getCancelledRunning());
+        pathfinderSystem.shutdown();
+    }
+
+    @Test
+    public void supersedeReplacesPendingRequest() throws InterruptedException {
+        PathfinderSystem pathfinderSystem = createSystem(1, PathfinderSystemConfig.ThreadMode.PLATFORM);
+        EntityRef entity = new PojoEntityManager().create();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        List<String> completed = Collections.synchronizedList(Lists.newArrayList());
+
+        JPSConfig old = new JPSConfig(new Vector3i(), new Vector3i(0, 0, 1000));
+        old.requester = entity;
+        old.plugin = new BlockingPlugin(new CountDownLatch(1), started);
+        int oldId = pathfinderSystem.requestPath(old, (path, target) -> completed.add("old"));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        JPSConfig current = new JPSConfig(new Vector3i(), new Vector3i(0, 0, 3));
+        current.requester = entity;
+        current.plugin = new FreeMovementPlugin(null, 0, 0);
+        assertEquals(-1, pathfinderSystem.requestPath(current, null));
+        current.supersede = true;
+        int currentId = pathfinderSystem.requestPath(current, (path, target) -> {
+            completed.add("current");
+            done.countDown();
+        });
+        assertTrue(currentId > oldId);
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(Lists.newArrayList("current"), completed);
+        assertFalse(pathfinderSystem.cancel(oldId));
+        pathfinderSystem.shutdown();
+    }
+
+    @Test
+    public void futuresCompose() throws Exception {
+        PathfinderSystem pathfinderSystem = createSystem(1, PathfinderSystemConfig.ThreadMode.PLATFORM);
+        List<CompletableFuture<PathResult>> futures = Lists.newArrayList();
+        for (int i = 1; i <= 3; i++) {
+            JPSConfig config = new JPSConfig(new Vector3i(), new Vector3i(0, 0, i * 10));
+            config.plugin = new FreeMovementPlugin(null, 0, 0);
+            // the nearest target is out of budget
+            config.maxExploredNodes = i == 1 ? 5 : 100000;
+            futures.add(pathfinderSystem.requestPath(config));
+        }
+
+        // take the nearest target that can be reached
+        CompletableFuture<PathResult> nearest = futures.get(0);
+        for (CompletableFuture<PathResult> next : futures.subList(1, futures.size())) {
+            nearest = nearest.thenCompose(result -> result.isFound() ? CompletableFuture.completedFuture(result) : next);
+        }
+        PathResult result = nearest.get(10, TimeUnit.SECONDS);
+        assertEquals(PathStatus.FOUND, result.getStatus());
+        assertEquals(new Vector3i(0, 0, 20), result.getTarget());
+        assertEquals(21, result.getPath().size());
+        assertEquals(PathStatus.BUDGET_EXHAUSTED, futures.get(0).get().getStatus());
+        pathfinderSystem.shutdown();
+    }
+
+    @Test
+    public void cancellingFutureCancelsRequest() throws Exception {
+        PathfinderSystem pathfinderSystem = createSystem(1, PathfinderSystemConfig.ThreadMode.PLATFORM);
+        EntityRef entity = new PojoEntityManager().create();
+        CountDownLatch started = new CountDownLatch(1);
+
+        JPSConfig blocking = new JPSConfig(new Vector3i(), new Vector3i(0, 0, 1000));
+        blocking.requester = entity;
+        blocking.plugin = new BlockingPlugin(new CountDownLatch(1), started);
+        CompletableFuture<PathResult> future = pathfinderSystem.requestPath(blocking);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        // the requester has a request pending already
+        assertEquals(PathStatus.REJECTED, pathfinderSystem.requestPath(blocking).get().getStatus());
+
+        future.cancel(true);
+        assertEquals(1, pathfinderSystem.getCancelledRunning());
+
+        JPSConfig config = new JPSConfig(new Vector3i(), new Vector3i(0, 0, 3));
+        config.requester = entity;
+        config.plugin = new FreeMovementPlugin(null, 0, 0);
+        assertTrue(pathfinderSystem.requestPath(config).get(10, TimeUnit.SECONDS).isFound());
+        pathfinderSystem.shutdown();
+    }
+
+    @Test
+    public void batchSharesReachability() throws Exception {
+        PathfinderSystem pathfinderSystem = createSystem(2, PathfinderSystemConfig.ThreadMode.PLATFORM);
+        CountingPlugin plugin = new CountingPlugin();
+        List<JPSConfig> configs = Lists.newArrayList();
+        for (int i = 0; i < 8; i++) {
+            JPSConfig config = new JPSConfig(new Vector3i(i, 0, 0), new Vector3i(0, 0, 20));
+            config.plugin = plugin;
+            configs.add(config);
+        }
+
+        for (JPSConfig config : configs) {
+            assertTrue(pathfinderSystem.requestPath(config).get(10, TimeUnit.SECONDS).isFound());
+        }
+        int separateQueries = plugin.queries.getAndSet(0);
+
+        List<PathResult> results = pathfinderSystem.requestPaths(configs).get(10, TimeUnit.SECONDS);
+        assertEquals(configs.size(), results.size());
+        for (int i = 0; i < configs.size(); i++) {
+            assertTrue(results.get(i).isFound());
+            assertEquals(new Vector3i(i, 0, 0), results.get(i).getPath().get(0));
+        }
+        logger.info("{} plugin queries for separate requests, {} for a batch", separateQueries, plugin.queries.get());
+        assertTrue(plugin.queries.get() * 2 < separateQueries);
+        pathfinderSystem.shutdown();
+    }
+
+    @Test
+    public void batchKeepsSnapshotsApart() throws Exception {
+        PathfinderSystem pathfinderSystem = createSystem(1, PathfinderSystemConfig.ThreadMode.PLATFORM);
+        MapWorldProvider open = new MapWorldProvider(new String[]{"XXX"});
+        MapWorldProvider blocked = new MapWorldProvider(new String[]{"X X"});
+        FlyingPlugin plugin = new FlyingPlugin(open, 0.9f, 0.9f);
+        List<JPSConfig> configs = Lists.newArrayList();
+        for (MapWorldProvider world : new MapWorldProvider[]{open, blocked}) {
+            JPSConfig config = new JPSConfig(new Vector3i(), new Vector3i(2, 0, 0));
+            config.plugin = plugin;
+            config.snapshot = WorldSnapshot.capture(world, new Vector3i(-1, -1, -1), new Vector3i(3, 1, 1));
+            configs.add(config);
+        }
+
+        // the same plugin sees different blocks in each snapshot, so the searches must not share their answers
+        List<PathResult> results = pathfinderSystem.requestPaths(configs).get(10, TimeUnit.SECONDS);
+        assertTrue(results.get(0).isFound());
+        assertFalse(results.get(1).isFound());
+        pathfinderSystem.shutdown();
+    }
+
+    @Test
+    public void largeBatchIsSpreadOverWorkers() throws Exception {
+        PathfinderSystem pathfinderSystem = createSystem(4, PathfinderSystemConfig.ThreadMode.PLATFORM);
+        CountDownLatch started = new CountDownLatch(4);
+        BlockingPlugin plugin = new BlockingPlugin(release, started);
+        List<JPSConfig> configs = Lists.newArrayList();
+        for (int i = 0; i < 40; i++) {
+            JPSConfig config = new JPSConfig(new Vector3i(i, 0, 0), new Vector3i(i, 0, 1));
+            config.plugin = plugin;
+            configs.add(config);
+        }
+
+        CompletableFuture<List<PathResult>> results = pathfinderSystem.requestPaths(configs);
+        // a wave of 40 searches with the same plugin does not wait for a single worker
+        assertTrue(started.await(10, TimeUnit.SECONDS), started.getCount() + " workers never started");
+        release.countDown();
+        for (PathResult result : results.get(10, TimeUnit.SECONDS)) {
+            assertTrue(result.isFound());
+        }
+        pathfinderSystem.shutdown();
+    }
+
+    @Test
+    public void snapshotsAreTakenOnlyForAcceptedRequests() throws Exception {
+        PathfinderSystemConfig systemConfig = new PathfinderSystemConfig();
+        systemConfig.queueCapacity = 1;
+        systemConfig.takeSnapshots = true;
+        systemConfig.snapshotMargin = 1;
+        PathfinderSystem pathfinderSystem = createBlockedSystem(systemConfig);
+        Set<Thread> readers = Collections.synchronizedSet(Sets.newHashSet());
+        AtomicInteger reads = new AtomicInteger();
+        pathfinderSystem.setWorld(new MapWorldProvider(new String[0]) {
+            @Override
+            public Block getBlock(int x, int y, int z) {
+                readers.add(Thread.currentThread());
+                reads.incrementAndGet();
+                return super.getBlock(x, y, z);
+            }
+        });
+
+        // taken right away by the thread making the request, not by the worker that runs it later
+        CompletableFuture<PathResult> queued = pathfinderSystem.requestPath(createConfig(PathUrgency.NORMAL));
+        assertEquals(Collections.singleton(Thread.currentThread()), readers);
+        int readsForQueued = reads.get();
+
+        CompletableFuture<PathResult> refused = pathfinderSystem.requestPath(createConfig(PathUrgency.NORMAL));
+        assertEquals(PathStatus.REJECTED, refused.get(10, TimeUnit.SECONDS).getStatus());
+        assertEquals(readsForQueued, reads.get());
+
+        release.countDown();
+        assertTrue(queued.get(10, TimeUnit.SECONDS).isFound());
+        assertEquals(readsForQueued, reads.get());
+        pathfinderSystem.shutdown();
+    }
+
+    @Test
+    public void coalescedRequestKeepsItsPlace() throws Exception {
+        PathfinderSystemConfig systemConfig = new PathfinderSystemConfig();
+        systemConfig.coalesceRequests = true;
+        PathfinderSystem pathfinderSystem = createBlockedSystem(systemConfig);
+        EntityRef entity = new PojoEntityManager().create();
+        List<String> completed = Collections.synchronizedList(Lists.newArrayList());
+
+        JPSConfig old = createConfig(PathUrgency.NORMAL);
+        old.requester = entity;
+        CompletableFuture<PathResult> oldFuture = pathfinderSystem.requestPath(old);
+        pathfinderSystem.requestPath(createConfig(PathUrgency.NORMAL)).thenRun(() -> completed.add("other"));
+        JPSConfig current = createConfig(PathUrgency.NORMAL);
+        current.requester = entity;
+        current.stop.set(0, 0, 2);
+        CompletableFuture<PathResult> currentFuture = pathfinderSystem.requestPath(current);
+        currentFuture.thenRun(() -> completed.add("current"));
+        release.countDown();
+
+        assertEquals(PathStatus.CANCELLED, oldFuture.get(10, TimeUnit.SECONDS).getStatus());
+        assertEquals(new Vector3i(0, 0, 2), currentFuture.get(10, TimeUnit.SECONDS).getTarget());
+        pathfinderSystem.requestPath(createConfig(PathUrgency.IDLE)).get(10, TimeUnit.SECONDS);
+        assertEquals(Lists.newArrayList("current", "other"), completed);
+        assertEquals(1, pathfinderSystem.getCancelledQueued());
+        pathfinderSystem.shutdown();
+    }
+
+    @Test
+    public void concurrentRequestsGetLatestGoal() throws Exception {
+        PathfinderSystemConfig systemConfig = new PathfinderSystemConfig();
+        systemConfig.coalesceRequests = true;
+        PathfinderSystem pathfinderSystem = createSystem(systemConfig);
+        PojoEntityManager entityManager = new PojoEntityManager();
+        int threads = 4;
+        int entitiesPerThread = 25;
+        int goals = 5;
+
+        List<CompletableFuture<PathResult>> latest = Collections.synchronizedList(Lists.newArrayList());
+        List<Thread> requesters = Lists.newArrayList();
+        for (int t = 0; t < threads; t++) {
+            List<EntityRef> entities = Lists.newArrayList();
+            for (int i = 0; i < entitiesPerThread; i++) {
+                entities.add(entityManager.create());
+            }
+            requesters.add(new Thread(() -> {
+                for (EntityRef entity : entities) {
+                    CompletableFuture<PathResult> future = null;
+                    for (int goal = 1; goal <= goals; goal++) {
+                        JPSConfig config = createConfig(PathUrgency.NORMAL);
+                        config.requester = entity;
+                        config.stop.set(0, 0, goal);
+                        future = pathfinderSystem.requestPath(config);
+                    }
+                    latest.add(future);
+                }
+            }));
+        }
+        for (Thread requester : requesters) {
+            requester.start();
+        }
+        for (Thread requester : requesters) {
+            requester.join();
+        }
+
+        // none of them was refused, or replaced by an older request
+        assertEquals(threads * entitiesPerThread, latest.size());
+        for (CompletableFuture<PathResult> future : latest) {
+            PathResult result = future.get(10, TimeUnit.SECONDS);
+            assertEquals(PathStatus.FOUND, result.getStatus());
+            assertEquals(new Vector3i(0, 0, goals), result.getTarget());
+        }
+        pathfinderSystem.shutdown();
+    }
+
+    @Test
+    public void callbacksRunOnMainThread() throws Exception {
+        PathfinderSystemConfig systemConfig = new PathfinderSystemConfig();
+        systemConfig.callbackDelivery = PathfinderSystemConfig.CallbackDelivery.MAIN_THREAD;
+        CountDownLatch finished = new CountDownLatch(4);
+        PathfinderSystem pathfinderSystem = new PathfinderSystem() {
+            @Override
+            void deliver(PathfinderCallback callback, PathResult result) {
+                super.deliver(callback, result);
+                finished.countDown();
+            }
+        };
+        pathfinderSystem.setConfig(systemConfig);
+        List<Thread> callbackThreads = Collections.synchronizedList(Lists.newArrayList());
+
+        List<CompletableFuture<PathResult>> futures = Lists.newArrayList();
+        for (int i = 0; i < 4; i++) {
+            CompletableFuture<PathResult> future = pathfinderSystem.requestPath(createConfig(PathUrgency.NORMAL));
+            future.thenRun(() -> callbackThreads.add(Thread.currentThread()));
+            futures.add(future);
+        }
+
+        // the workers are done, but nothing is delivered until the system is updated
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        for (CompletableFuture<PathResult> future : futures) {
+            assertFalse(future.isDone());
+        }
+        pathfinderSystem.update(0.02f);
+        for (CompletableFuture<PathResult> future : futures) {
+            assertTrue(future.isDone());
+        }
+        assertEquals(Collections.nCopies(4, Thread.currentThread()), callbackThreads);
+        pathfinderSystem.shutdown();
+    }
+
+    @Test
+    public void slicedSearchesShareWorkers() throws InterruptedException {
+        PathfinderSystem pathfinderSystem = createSystem(1, PathfinderSystemConfig.ThreadMode.PLATFORM);
+        List<String> completed = Collections.synchronizedList(Lists.newArrayList());
+        CountDownLatch done = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+
+        JPSConfig longConfig = new JPSConfig(new Vector3i(), new Vector3i(0, 0, 300));
+        longConfig.plugin = new BlockingPlugin(release);
+        longConfig.expansionsPerSlice = 10;
+        pathfinderSystem.requestPath(longConfig, (path, target) -> {
+            assertEquals(301, path.size());
+            completed.add("long");
+            done.countDown();
+        });
+
+        JPSConfig shortConfig = new JPSConfig(new Vector3i(), new Vector3i(0, 0, 3));
+        shortConfig.plugin = new FreeMovementPlugin(null, 0, 0);
+        pathfinderSystem.requestPath(shortConfig, (path, target) -> {
+            completed.add("short");
+            done.countDown();
+        });
+        release.countDown();
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(Lists.newArrayList("short", "long"), completed);
+        pathfinderSystem.shutdown();
+    }
+
+    @Test
+    public void urgentRequestsGoFirst() throws InterruptedException {
+        PathfinderSystem pathfinderSystem = createSystem(1, PathfinderSystemConfig.ThreadMode.PLATFORM);
+        List<String> completed = Collections.synchronizedList(Lists.newArrayList());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(4);
+
+        // occupy the only worker until everything else is queued
+        JPSConfig blocking = new JPSConfig(new Vector3i(), new Vector3i(0, 0, 1));
+        blocking.plugin = new BlockingPlugin(release, started);
+        pathfinderSystem.requestPath(blocking, (path, target) -> done.countDown());
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        for (PathUrgency urgency : new PathUrgency[] {PathUrgency.IDLE, PathUrgency.NORMAL, PathUrgency.URGENT}) {
+            JPSConfig config = new JPSConfig(new Vector3i(), new Vector3i(0, 0, 1));
+            config.plugin = new FreeMovementPlugin(null, 0, 0);
+            config.urgency = urgency;
+            pathfinderSystem.requestPath(config, (path, target) -> {
+                completed.add(urgency.name());
+                done.countDown();
+            });
+        }
+        release.countDown();
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(Lists.newArrayList("URGENT", "NORMAL", "IDLE"), completed);
+        pathfinderSystem.shutdown();
+    }
+
+    @Test
+    public void fullQueueRefusesRequests() throws InterruptedException {
+        PathfinderSystemConfig systemConfig = new PathfinderSystemConfig();
+        systemConfig.workers = 1;
+        systemConfig.queueCapacity = 1;
+        PathfinderSystem pathfinderSystem = new PathfinderSystem();
+        pathfinderSystem.setConfig(systemConfig);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+        JPSConfig config = new JPSConfig(new Vector3i(), new Vector3i(0, 0, 1));
+        config.plugin = new BlockingPlugin(release, started);
+
+        // the first request occupies the only worker, the second one the only slot in the queue
+        assertEquals(0, pathfinderSystem.requestPath(config, (path, target) -> done.countDown()));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertEquals(1, pathfinderSystem.requestPath(config, (path, target) -> done.countDown()));
+        assertEquals(-1, pathfinderSystem.requestPath(config, (path, target) -> done.countDown()));
+        assertEquals(1, pathfinderSystem.getRejected());
+
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        pathfinderSystem.shutdown();
+    }
+
+    @Test
+    public void fullQueueDropsOldestRequest() throws Exception {
+        PathfinderSystem pathfinderSystem = createBlockedSystem(PathfinderSystemConfig.OverflowPolicy.DROP_OLDEST);
+        List<CompletableFuture<PathResult>> futures = Lists.newArrayList();
+        for (PathUrgency urgency : new PathUrgency[] {PathUrgency.URGENT, PathUrgency.IDLE, PathUrgency.IDLE}) {
+            futures.add(pathfinderSystem.requestPath(createConfig(urgency)));
+        }
+        release.countDown();
+
+        assertEquals(PathStatus.REJECTED, futures.get(0).get(10, TimeUnit.SECONDS).getStatus());
+        assertTrue(futures.get(1).get(10, TimeUnit.SECONDS).isFound());
+        assertTrue(futures.get(2).get(10, TimeUnit.SECONDS).isFound());
+        assertEquals(1, pathfinderSystem.getShed());
+        assertEquals(0, pathfinderSystem.getRejected());
+        pathfinderSystem.shutdown();
+    }
+
+    @Test
+    public void fullQueueDropsLowestPriorityRequest() throws Exception {
+        PathfinderSystem pathfinderSystem = createBlockedSystem(PathfinderSystemConfig.OverflowPolicy.DROP_LOWEST_PRIORITY);
+        List<CompletableFuture<PathResult>> futures = Lists.newArrayList();
+        for (PathUrgency urgency : new PathUrgency[] {PathUrgency.NORMAL, PathUrgency.IDLE, PathUrgency.URGENT, PathUrgency.IDLE}) {
+            futures.add(pathfinderSystem.requestPath(createConfig(urgency)));
+        }
+        release.countDown();
+
+        // the queued idle request made room for the urgent one, and there was nothing less urgent than the second one
+        assertTrue(futures.get(0).get(10, TimeUnit.SECONDS).isFound());
+        assertEquals(PathStatus.REJECTED, futures.get(1).get(10, TimeUnit.SECONDS).getStatus());
+        assertTrue(futures.get(2).get(10, TimeUnit.SECONDS).isFound());
+        assertEquals(PathStatus.REJECTED, futures.get(3).get(10, TimeUnit.SECONDS).getStatus());
+        assertEquals(1, pathfinderSystem.getShed());
+        assertEquals(1, pathfinderSystem.getRejected());
+        pathfinderSystem.shutdown();
+    }
+
+    @Test
+    public void configCannotChangeWhileRunning() {
+        PathfinderSystem pathfinderSystem = new PathfinderSystem();
+        JPSConfig config = new JPSConfig(new Vector3i(), new Vector3i(0, 0, 1));
+        config.plugin = new FreeMovementPlugin(null, 0, 0);
+        pathfinderSystem.requestPath(config, null);
+
+        assertThrows(IllegalStateException.class, () -> pathfinderSystem.setConfig(new PathfinderSystemConfig()));
+        pathfinderSystem.shutdown();
+    }
+
+    @Test
+    public void searchesRunConcurrently() throws InterruptedException {
+        assertSearchesOverlap(4, PathfinderSystemConfig.ThreadMode.PLATFORM);
+    }
+
+    @Test
+    public void searchesRunOnVirtualThreads() throws InterruptedException {
+        // falls back to platform threads before Java 21, in which case this is the same as the test above
+        assertSearchesOverlap(8, PathfinderSystemConfig.ThreadMode.VIRTUAL);
+    }
+
+    private PathfinderSystem createSystem(int workers, PathfinderSystemConfig.ThreadMode threadMode) {
+        PathfinderSystemConfig systemConfig = new PathfinderSystemConfig();
+        systemConfig.workers = workers;
+        systemConfig.threadMode = threadMode;
+        return createSystem(systemConfig);
+    }
+
+    private PathfinderSystem createSystem(PathfinderSystemConfig systemConfig) {
+        PathfinderSystem pathfinderSystem = new PathfinderSystem();
+        pathfinderSystem.setConfig(systemConfig);
+        return pathfinderSystem;
+    }
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    /**
+     * @return a system with one worker, which is busy until {@link #release} is counted down
+     */
+    private PathfinderSystem createBlockedSystem(PathfinderSystemConfig systemConfig) throws InterruptedException {
+        systemConfig.workers = 1;
+        PathfinderSystem pathfinderSystem = new PathfinderSystem();
+        pathfinderSystem.setConfig(systemConfig);
+
+        CountDownLatch started = new CountDownLatch(1);
+        JPSConfig blocking = new JPSConfig(new Vector3i(), new Vector3i(0, 0, 1));
+        blocking.plugin = new BlockingPlugin(release, started);
+        pathfinderSystem.requestPath(blocking, null);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        return pathfinderSystem;
+    }
+
+    private PathfinderSystem createBlockedSystem(PathfinderSystemConfig.OverflowPolicy overflowPolicy)
+            throws InterruptedException {
+        PathfinderSystemConfig systemConfig = new PathfinderSystemConfig();
+        systemConfig.queueCapacity = 2;
+        systemConfig.overflowPolicy = overflowPolicy;
+        return createBlockedSystem(systemConfig);
+    }
+
+    private JPSConfig createConfig(PathUrgency urgency) {
+        JPSConfig config = new JPSConfig(new Vector3i(), new Vector3i(0, 0, 1));
+        config.plugin = new FreeMovementPlugin(null, 0, 0);
+        config.urgency = urgency;
+        return config;
+    }
+
+    /**
+     * Asserts that as many searches as there are workers can be inside their plugins at the same time.
+     */
+    private void assertSearchesOverlap(int workers, PathfinderSystemConfig.ThreadMode threadMode)
+            throws InterruptedException {
+        PathfinderSystem pathfinderSystem = createSystem(workers, threadMode);
+        CountDownLatch started = new CountDownLatch(workers);
+        CountDownLatch done = new CountDownLatch(workers);
+
+        for (int i = 0; i < workers; i++) {
+            JPSConfig config = new JPSConfig(new Vector3i(i * 10, 0, 0), new Vector3i(i * 10, 0, 1));
+            // each search blocks on its first query, so the latch only opens if all of them run at once
+            config.plugin = new BlockingPlugin(release, started);
+            pathfinderSystem.requestPath(config, (path, target) -> done.countDown());
+        }
+        assertTrue(started.await(10, TimeUnit.SECONDS), started.getCount() + " searches never started");
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        pathfinderSystem.shutdown();
+    }
+
+    private static class BlockingPlugin extends FreeMovementPlugin {
+        private final CountDownLatch release;
+        private final CountDownLatch started;
+
+        BlockingPlugin(CountDownLatch release) {
+            this(release, new CountDownLatch(1));
+        }
+
+        BlockingPlugin(CountDownLatch release, CountDownLatch started) {
+            super(null, 0, 0);
+            this.release = release;
+            this.started = started;
+        }
+
+        @Override
+        public boolean isReachable(Vector3ic to, Vector3ic from) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        }
+    }
+
+    private static class CountingPlugin extends FreeMovementPlugin {
+        private final AtomicInteger queries = new AtomicInteger();
+
+        CountingPlugin() {
+            super(null, 0, 0);
+        }
+
+        @Override
+        public boolean isReachable(Vector3ic to, Vector3ic from) {
+            queries.incrementAndGet();
+            return true;
+        }
     }
 }
@@ -0,0 +1,61 @@
+// Copyright 2026 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.flexiblepathfinding;
+
+import com.google.common.collect.Lists;
+import org.joml.Vector3i;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PathfinderTaskTest {
+    @Test
+    public void urgencyComesFirst() {
+        PathfinderTask idle = task(PathUrgency.IDLE, 1);
+        PathfinderTask normal = task(PathUrgency.NORMAL, Float.POSITIVE_INFINITY);
+        PathfinderTask urgent = task(PathUrgency.URGENT, Float.POSITIVE_INFINITY);
+        assertEquals(Lists.newArrayList(urgent, normal, idle), sorted(idle, normal, urgent));
+    }
+
+    @Test
+    public void earliestDeadlineFirst() {
+        PathfinderTask none = task(PathUrgency.NORMAL, Float.POSITIVE_INFINITY);
+        PathfinderTask late = task(PathUrgency.NORMAL, 10);
+        PathfinderTask early = task(PathUrgency.NORMAL, 1);
+        assertEquals(Lists.newArrayList(early, late, none), sorted(none, late, early));
+    }
+
+    @Test
+    public void nearestPlayerFirst() {
+        PathfinderTask unknown = task(PathUrgency.NORMAL, Float.POSITIVE_INFINITY);
+        PathfinderTask far = task(PathUrgency.NORMAL, Float.POSITIVE_INFINITY);
+        far.setPlayerDistance(100);
+        PathfinderTask near = task(PathUrgency.NORMAL, Float.POSITIVE_INFINITY);
+        near.setPlayerDistance(5);
+        assertEquals(Lists.newArrayList(near, far, unknown), sorted(unknown, far, near));
+    }
+
+    @Test
+    public void otherwiseInOrder() {
+        PathfinderTask first = task(PathUrgency.NORMAL, Float.POSITIVE_INFINITY);
+        PathfinderTask second = task(PathUrgency.NORMAL, Float.POSITIVE_INFINITY);
+        PathfinderTask third = task(PathUrgency.NORMAL, Float.POSITIVE_INFINITY);
+        assertEquals(Lists.newArrayList(first, second, third), sorted(third, first, second));
+    }
+
+    private PathfinderTask task(PathUrgency urgency, float deadline) {
+        JPSConfig config = new JPSConfig(new Vector3i(), new Vector3i(0, 0, 1));
+        config.urgency = urgency;
+        config.deadline = deadline;
+        return new PathfinderTask(config, null);
+    }
+
+    private List<PathfinderTask> sorted(PathfinderTask... tasks) {
+        List<PathfinderTask> result = Lists.newArrayList(tasks);
+        Collections.sort(result);
+        return result;
+    }
+}
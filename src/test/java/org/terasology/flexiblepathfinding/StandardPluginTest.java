@@ -0,0 +1,117 @@
+// Copyright 2026 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.flexiblepathfinding;
+
+import org.joml.Vector3i;
+import org.joml.Vector3ic;
+import org.junit.jupiter.api.Test;
+import org.terasology.flexiblepathfinding.helpers.MapWorldProvider;
+import org.terasology.flexiblepathfinding.plugins.JPSPlugin;
+import org.terasology.flexiblepathfinding.plugins.StandardPlugin;
+import org.terasology.flexiblepathfinding.plugins.basic.CompositePlugin;
+import org.terasology.flexiblepathfinding.plugins.basic.FlyingPlugin;
+import org.terasology.flexiblepathfinding.plugins.basic.FreeMovementPlugin;
+import org.terasology.flexiblepathfinding.plugins.basic.LeapingPlugin;
+import org.terasology.flexiblepathfinding.plugins.basic.SwimmingPlugin;
+import org.terasology.flexiblepathfinding.plugins.basic.WalkingPlugin;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class StandardPluginTest {
+    private static final int SIZE = 12;
+
+    @Test
+    public void reachableMaskMatchesSingleMoves() {
+        MapWorldProvider world = new MapWorldProvider(randomMap(new Random(7)));
+        // covers half of the map
+        WorldSnapshot snapshot = WorldSnapshot.capture(world, new Vector3i(), new Vector3i(SIZE / 2, SIZE, SIZE));
+
+        for (StandardPlugin plugin : new StandardPlugin[]{
+                new WalkingPlugin(world, 0.8f, 1.7f),
+                new WalkingPlugin(world, 2.9f, 2.9f),
+                new LeapingPlugin(world, 0.8f, 1.7f),
+                new FlyingPlugin(world, 1.9f, 0.9f),
+                new SwimmingPlugin(world, 0.9f, 0.9f),
+        }) {
+            assertMasksMatch(plugin);
+            // partly covered by the snapshot
+            assertMasksMatch(plugin.withSnapshot(snapshot));
+        }
+    }
+
+    @Test
+    public void compositeMaskMatchesSingleMoves() {
+        MapWorldProvider world = new MapWorldProvider(randomMap(new Random(11)));
+        // covers half of the map
+        WorldSnapshot snapshot = WorldSnapshot.capture(world, new Vector3i(), new Vector3i(SIZE / 2, SIZE, SIZE));
+
+        // reads the blocks once for all of its plugins
+        CompositePlugin fused = new CompositePlugin(
+                new WalkingPlugin(world, 0.8f, 1.7f),
+                new LeapingPlugin(world, 0.8f, 1.7f),
+                new SwimmingPlugin(world, 1.9f, 0.9f));
+        // asks each plugin on its own
+        CompositePlugin mixed = new CompositePlugin(
+                new WalkingPlugin(world, 0.8f, 1.7f),
+                new FreeMovementPlugin(null, 0, 0) {
+                    @Override
+                    public boolean isReachable(Vector3ic to, Vector3ic from) {
+                        return to.y() > from.y() && to.x() == from.x();
+                    }
+                });
+
+        for (JPSPlugin plugin : new JPSPlugin[]{fused, mixed}) {
+            // often enough for the plugins to be reordered
+            for (int i = 0; i < 5; i++) {
+                assertMasksMatch(plugin);
+            }
+            assertMasksMatch(plugin.withSnapshot(snapshot));
+        }
+    }
+
+    private static void assertMasksMatch(JPSPlugin plugin) {
+        Vector3i from = new Vector3i();
+        Vector3i to = new Vector3i();
+        for (int x = 1; x < SIZE - 1; x++) {
+            for (int y = 1; y < SIZE - 1; y++) {
+                for (int z = 1; z < SIZE - 1; z++) {
+                    from.set(x, y, z);
+                    assertEquals(singleMoves(plugin, from, to), plugin.reachableMask(from), plugin + " at " + from);
+                }
+            }
+        }
+    }
+
+    private static int singleMoves(JPSPlugin plugin, Vector3ic from, Vector3i to) {
+        int result = 0;
+        for (JPSDirection dir : JPSDirection.directions()) {
+            if (plugin.isReachable(to.set(from).add(dir.getX(), dir.getY(), dir.getZ()), from)) {
+                result |= dir.bit();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return a map of mostly air, some ground and some water, in the format of {@link MapWorldProvider}
+     */
+    private static String[] randomMap(Random random) {
+        String[] map = new String[SIZE];
+        for (int z = 0; z < SIZE; z++) {
+            StringBuilder line = new StringBuilder();
+            for (int y = 0; y < SIZE; y++) {
+                if (y > 0) {
+                    line.append('|');
+                }
+                for (int x = 0; x < SIZE; x++) {
+                    int roll = random.nextInt(10);
+                    line.append(roll < 2 ? ' ' : roll < 4 ? '~' : 'X');
+                }
+            }
+            map[z] = line.toString();
+        }
+        return map;
+    }
+}
@@ -0,0 +1,115 @@
+// Copyright 2026 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.flexiblepathfinding;
+
+import org.joml.Vector3i;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.terasology.engine.world.WorldProvider;
+import org.terasology.engine.world.block.Block;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+
+public class WorldSnapshotTest {
+    private WorldProvider world;
+    private Block ground;
+
+    @BeforeEach
+    public void setup() {
+        ground = new Block();
+        Block air = new Block();
+        air.setPenetrable(true);
+        Block water = new Block();
+        water.setPenetrable(true);
+        water.setLiquid(true);
+
+        world = Mockito.mock(WorldProvider.class);
+        Mockito.when(world.getBlock(anyInt(), anyInt(), anyInt())).thenReturn(ground);
+        Mockito.when(world.getBlock(1, 2, 3)).thenReturn(air);
+        Mockito.when(world.getBlock(-1, 0, 3)).thenReturn(water);
+    }
+
+    @Test
+    public void capturesFlags() {
+        WorldSnapshot snapshot = WorldSnapshot.capture(world, new Vector3i(-1, 0, 2), new Vector3i(1, 2, 3));
+
+        assertEquals(WorldSnapshot.PENETRABLE, snapshot.getFlags(1, 2, 3));
+        assertEquals(WorldSnapshot.PENETRABLE | WorldSnapshot.LIQUID, snapshot.getFlags(-1, 0, 3));
+        assertEquals(WorldSnapshot.SOLID, snapshot.getFlags(0, 1, 2));
+        assertTrue(snapshot.isLiquid(-1, 0, 3));
+        assertFalse(snapshot.isPenetrable(1, 2, 2));
+
+        assertTrue(snapshot.contains(-1, 0, 2));
+        assertTrue(snapshot.contains(1, 2, 3));
+        assertFalse(snapshot.contains(2, 2, 3));
+        assertFalse(snapshot.contains(1, -1, 3));
+        assertFalse(snapshot.contains(1, 2, 4));
+    }
+
+    @Test
+    public void laterChangesAreNotSeen() {
+        WorldSnapshot snapshot = WorldSnapshot.capture(world, new Vector3i(0, 0, 0), new Vector3i(3, 3, 3));
+        Mockito.when(world.getBlock(1, 2, 3)).thenReturn(ground);
+
+        assertTrue(snapshot.isPenetrable(1, 2, 3));
+        WorldSnapshot later = WorldSnapshot.capture(world, new Vector3i(0, 0, 0), new Vector3i(3, 3, 3));
+        assertFalse(later.isPenetrable(1, 2, 3));
+        assertTrue(later.getId() > snapshot.getId());
+    }
+
+    @Test
+    public void boxChecksMatchBlockByBlock() {
+        Block air = new Block();
+        air.setPenetrable(true);
+        Random random = new Random(42);
+        Mockito.when(world.getBlock(anyInt(), anyInt(), anyInt()))
+                .thenAnswer(invocation -> random.nextInt(10) == 0 ? ground : air);
+        WorldSnapshot snapshot = WorldSnapshot.capture(world, new Vector3i(-5, 0, 3), new Vector3i(14, 9, 17));
+
+        for (int i = 0; i < 2000; i++) {
+            int minX = -5 + random.nextInt(20);
+            int minY = random.nextInt(10);
+            int minZ = 3 + random.nextInt(15);
+            int maxX = minX + random.nextInt(15 - minX);
+            int maxY = minY + random.nextInt(10 - minY);
+            int maxZ = minZ + random.nextInt(18 - minZ);
+
+            boolean expected = true;
+            for (int x = minX; x <= maxX; x++) {
+                for (int y = minY; y <= maxY; y++) {
+                    for (int z = minZ; z <= maxZ; z++) {
+                        expected &= snapshot.isPenetrable(x, y, z);
+                    }
+                }
+            }
+            assertEquals(expected, snapshot.allHave(WorldSnapshot.PENETRABLE, minX, minY, minZ, maxX, maxY, maxZ),
+                    "box from (" + minX + ", " + minY + ", " + minZ + ") to (" + maxX + ", " + maxY + ", " + maxZ + ")");
+        }
+    }
+
+    @Test
+    public void smallBoxesAreScanned() {
+        WorldSnapshot snapshot = WorldSnapshot.capture(world, new Vector3i(-5, 0, 3), new Vector3i(14, 9, 17));
+
+        // a humanoid, and the largest box that is still scanned
+        assertFalse(snapshot.allHave(WorldSnapshot.PENETRABLE, 1, 1, 3, 1, 2, 3));
+        assertFalse(snapshot.allHave(WorldSnapshot.PENETRABLE, 0, 0, 3, 3, 3, 6));
+        assertEquals(0, snapshot.getClearanceMapCount());
+
+        assertFalse(snapshot.allHave(WorldSnapshot.PENETRABLE, 0, 0, 3, 4, 3, 6));
+        assertEquals(1, snapshot.getClearanceMapCount());
+    }
+
+    @Test
+    public void volumeIsLimited() {
+        assertThrows(IllegalArgumentException.class,
+                () -> WorldSnapshot.capture(world, new Vector3i(0, 0, 0), new Vector3i(1000, 1000, 1000)));
+    }
+}
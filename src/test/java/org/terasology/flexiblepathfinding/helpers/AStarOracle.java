@@ -0,0 +1,106 @@
+// Copyright 2026 The Terasology Foundation
+// SPDX-License-Identifier: Apache-2.0
+package org.terasology.flexiblepathfinding.helpers;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.joml.Vector3i;
+import org.terasology.flexiblepathfinding.JPSConfig;
+import org.terasology.flexiblepathfinding.JPSDirection;
+
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * A plain A* search over all 26 neighbors, asking the configured plugin about every single move. Slow, but simple
+ * enough to serve as a reference for what {@link org.terasology.flexiblepathfinding.JPSImpl} should find.
+ */
+public class AStarOracle {
+    private static final int MAX_EXPANSIONS = 100000;
+
+    private int expansions;
+
+    public int getExpansions() {
+        return expansions;
+    }
+
+    /**
+     * @return the shortest (or with `config.useTraversalCosts`, the cheapest) path from `config.start` to within `config.goalDistance` of `config.stop`, or an empty
+     * list if there is none
+     */
+    public List<Vector3i> findPath(JPSConfig config) {
+        Map<Vector3i, Double> costs = Maps.newHashMap();
+        Map<Vector3i, Vector3i> parents = Maps.newHashMap();
+        PriorityQueue<Entry> open = new PriorityQueue<>();
+
+        Vector3i start = new Vector3i(config.start);
+        costs.put(start, 0.0);
+        open.add(new Entry(start, 0, config.stop.distance(start)));
+
+        expansions = 0;
+        while (!open.isEmpty() && expansions < MAX_EXPANSIONS) {
+            Entry current = open.poll();
+            if (current.cost > costs.get(current.pos)) {
+                continue;
+            }
+            expansions++;
+
+            if (current.pos.distanceSquared(config.stop) <= config.goalDistance * config.goalDistance) {
+                List<Vector3i> path = Lists.newArrayList();
+                for (Vector3i pos = current.pos; pos != null; pos = parents.get(pos)) {
+                    path.add(0, pos);
+                }
+                return path;
+            }
+
+            for (Vector3i dir : JPSDirection.valuesAsVectors()) {
+                Vector3i neighbor = dir.add(current.pos);
+                if (!config.plugin.isReachable(neighbor, current.pos)) {
+                    continue;
+                }
+                double cost = current.cost + moveCost(config, neighbor, current.pos);
+                Double known = costs.get(neighbor);
+                if (known == null || cost < known) {
+                    costs.put(neighbor, cost);
+                    parents.put(neighbor, current.pos);
+                    open.add(new Entry(neighbor, cost, cost + config.stop.distance(neighbor)));
+                }
+            }
+        }
+        return Lists.newArrayList();
+    }
+
+    /**
+     * @return the summed cost of the moves along the path, as the search with the same config would count it
+     */
+    public static double pathCost(JPSConfig config, List<Vector3i> path) {
+        double cost = 0;
+        for (int i = 1; i < path.size(); i++) {
+            cost += moveCost(config, path.get(i), path.get(i - 1));
+        }
+        return cost;
+    }
+
+    private static double moveCost(JPSConfig config, Vector3i to, Vector3i from) {
+        double distance = to.distance(from);
+        return config.useTraversalCosts ? distance * Math.max(1, config.plugin.traversalCost(to, from)) : distance;
+    }
+
+    private static class Entry implements Comparable<Entry> {
+        final Vector3i pos;
+        final double cost;
+        final double estimate;
+
+        Entry(Vector3i pos, double cost, double estimate) {
+            this.pos = pos;
+            this.cost = cost;
+            this.estimate = estimate;
+        }
+
+        @Override
+        public int compareTo(Entry o) {
+            return Double.compare(estimate, o.estimate);
+        }
+    }
+}
@@ -7,13 +7,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.engine.world.WorldProvider;
 import org.terasology.flexiblepathfinding.JPSConfig;
+import org.terasology.flexiblepathfinding.JPSDirection;
 import org.terasology.flexiblepathfinding.JPSImpl;
+import org.terasology.flexiblepathfinding.WorldSnapshot;
 import org.terasology.flexiblepathfinding.plugins.StandardPlugin;
 
 import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class JPSTestHelper {
@@ -113,6 +116,56 @@ public class JPSTestHelper {
         config.stop = testData.stop;
         JPSImpl jps = new JPSImpl(config);
         jps.run();
+        assertPrunedSearchMatchesOracle(config, jps);
+        assertSnapshotSearchMatches(config, jps, world);
         return jps.getPath();
     }
+
+    /**
+     * Runs the search again against a snapshot of the corridor between start and goal. The snapshot does not cover the
+     * whole map, so this also checks the fallback to the world outside of it.
+     */
+    private static void assertSnapshotSearchMatches(JPSConfig config, JPSImpl live, WorldProvider world) throws InterruptedException {
+        Vector3i min = new Vector3i(config.start).min(config.stop).sub(2, 2, 2);
+        Vector3i max = new Vector3i(config.start).max(config.stop).add(2, 2, 2);
+        WorldSnapshot snapshot = WorldSnapshot.capture(world, min, max);
+
+        JPSImpl jps = new JPSImpl(config);
+        jps.setSnapshot(snapshot);
+        jps.run();
+        assertEquals(live.getPath(), jps.getPath(), "search against a snapshot found a different path");
+        assertEquals(snapshot, jps.getSnapshot());
+    }
+
+    /**
+     * Runs the search again with pruning enabled, and checks it against a plain A* search: both must agree on whether
+     * there is a path and on its cost, and every step of the pruned path must be a move the plugin allows.
+     */
+    private static void assertPrunedSearchMatchesOracle(JPSConfig config, JPSImpl unpruned) throws InterruptedException {
+        AStarOracle oracle = new AStarOracle();
+        List<Vector3i> oraclePath = oracle.findPath(config);
+
+        boolean usePruning = config.usePruning;
+        config.usePruning = true;
+        JPSImpl pruned = new JPSImpl(config);
+        pruned.run();
+        config.usePruning = usePruning;
+
+        List<Vector3i> path = pruned.getPath();
+        logger.info("expanded nodes: {} without pruning, {} with pruning, {} with A*",
+            unpruned.getMetric().nodesExpanded, pruned.getMetric().nodesExpanded, oracle.getExpansions());
+
+        assertEquals(oraclePath.isEmpty(), path.isEmpty(), "pruned search and A* disagree on whether there is a path");
+        assertEquals(AStarOracle.pathCost(config, oraclePath), AStarOracle.pathCost(config, path), 1e-6,
+            "pruned search found a more expensive path than A*: " + path);
+        if (config.useLineOfSight) {
+            return;
+        }
+        for (int i = 1; i < path.size(); i++) {
+            Vector3i from = path.get(i - 1);
+            Vector3i to = path.get(i);
+            assertNotNull(JPSDirection.fromDelta(to.x - from.x, to.y - from.y, to.z - from.z), from + " -> " + to);
+            assertTrue(config.plugin.isReachable(to, from), from + " -> " + to);
+        }
+    }
 }